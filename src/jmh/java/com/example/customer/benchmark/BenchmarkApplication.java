@@ -0,0 +1,125 @@
+package com.example.customer.benchmark;
+
+import com.example.customer.CustomerManagementApplication;
+import com.example.customer.service.impl.CustomerCache;
+import com.example.customer.service.impl.CustomerCounter;
+import com.example.customer.service.impl.CustomerPhoneIndex;
+import com.example.customer.service.impl.CustomerSearchIndex;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试和压测用的应用上下文
+ * 启动完整的Spring上下文（JMH不带Web容器，压测使用随机端口的内嵌Tomcat），使用独立的内存H2数据库（data.sql中的初始用户和客户），
+ * 关闭SQL日志和定时重建任务，避免干扰测量结果
+ */
+final class BenchmarkApplication {
+
+    /**
+     * 基准数据的手机号起始值，避开data.sql中的138号段
+     */
+    static final long PHONE_BASE = 13_000_000_000L;
+
+    /**
+     * 基准数据的ID起始值，避开data.sql中的数据和应用已取到的号段
+     */
+    static final long ID_BASE = 1_000_000L;
+
+    private static final String INSERT_SQL = "INSERT INTO customers "
+            + "(id, name, phone, email, address, age, gender, created_time, updated_time) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ADVANCE_ID_SQL = "UPDATE id_generators "
+            + "SET next_val = (SELECT MAX(id) + 1 FROM customers) WHERE sequence_name = 'customers'";
+
+    private static final String[] SURNAMES = {"张", "王", "李", "赵", "刘", "陈", "杨", "黄", "周", "吴"};
+
+    private static final String[] GIVEN_NAMES = {"伟", "芳", "娜", "敏", "静", "磊", "强", "洋", "艳", "勇", "军", "杰", "娟", "涛", "明"};
+
+    private static final int SEED_BATCH_SIZE = 5000;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String database, Map<String, String> overrides) {
+        return start(database, WebApplicationType.NONE, overrides);
+    }
+
+    static ConfigurableApplicationContext start(String database, WebApplicationType webApplicationType,
+                                                Map<String, String> overrides) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        properties.put("spring.sql.init.schema-locations", "optional:classpath:none.sql");
+        properties.put("spring.jpa.defer-datasource-initialization", "true");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.example.customer", "WARN");
+        properties.put("logging.level.org.hibernate.SQL", "WARN");
+        properties.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+        properties.put("logging.level.org.springframework.web", "WARN");
+        properties.put("customer.search-index.rebuild-cron", "-");
+        properties.put("customer.phone-index.rebuild-cron", "-");
+        properties.putAll(overrides);
+        // devtools的重启类加载器在应用启动前读取系统属性，只能以系统属性关闭
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // 以命令行参数传入，优先级高于application.properties
+        List<String> args = new ArrayList<>();
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            args.add("--" + entry.getKey() + "=" + entry.getValue());
+        }
+        return new SpringApplicationBuilder(CustomerManagementApplication.class)
+                .web(webApplicationType)
+                .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * 批量写入 rows 条客户，然后同步重建内存索引、计数器并清空缓存
+     */
+    static void seedCustomers(ConfigurableApplicationContext context, int rows) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Object[]{
+                    ID_BASE + i,
+                    name(i),
+                    String.valueOf(PHONE_BASE + i),
+                    "user" + i + "@example.com",
+                    "测试地址" + (i % 1000) + "号",
+                    18 + i % 60,
+                    i % 2 == 0 ? "MALE" : "FEMALE",
+                    now,
+                    now
+            });
+            if (batch.size() == SEED_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        }
+        // 之后的号段从基准数据之后开始
+        jdbcTemplate.update(ADVANCE_ID_SQL);
+        context.getBean(CustomerSearchIndex.class).rebuild();
+        context.getBean(CustomerPhoneIndex.class).rebuild();
+        context.getBean(CustomerCounter.class).reconcile();
+        context.getBean(CustomerCache.class).invalidateAll();
+    }
+
+    static String name(int i) {
+        return SURNAMES[i % SURNAMES.length]
+                + GIVEN_NAMES[(i / SURNAMES.length) % GIVEN_NAMES.length]
+                + GIVEN_NAMES[(i / 7) % GIVEN_NAMES.length];
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.customer.benchmark;
+
+import com.example.customer.entity.Customer;
+import com.example.customer.service.CustomerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CustomerServiceImpl.findCustomersWithFilters 在不同数据量下的耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class CustomerQueryBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private CustomerService customerService;
+
+    private final Pageable firstPage = PageRequest.of(0, 10);
+
+    private String phonePrefix;
+
+    private String emailPart;
+
+    private String namePart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("query" + rows, Collections.<String, String>emptyMap());
+        BenchmarkApplication.seedCustomers(context, rows);
+        customerService = context.getBean(CustomerService.class);
+        int middle = rows / 2;
+        phonePrefix = String.valueOf(BenchmarkApplication.PHONE_BASE + middle).substring(0, 9);
+        emailPart = "user" + middle + "@";
+        namePart = BenchmarkApplication.name(middle);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Customer> noFilter() {
+        return customerService.findCustomersWithFilters(null, null, null, firstPage);
+    }
+
+    @Benchmark
+    public Page<Customer> byName() {
+        return customerService.findCustomersWithFilters(namePart, null, null, firstPage);
+    }
+
+    @Benchmark
+    public Page<Customer> byPhonePrefix() {
+        return customerService.findCustomersWithFilters(null, phonePrefix, null, firstPage);
+    }
+
+    @Benchmark
+    public Page<Customer> byEmail() {
+        return customerService.findCustomersWithFilters(null, null, emailPart, firstPage);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.customer.benchmark;
+
+import com.example.customer.dto.ImportReport;
+import com.example.customer.entity.Customer;
+import com.example.customer.entity.Gender;
+import com.example.customer.service.CustomerImportService;
+import com.example.customer.service.CustomerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户写入耗时：单条 saveCustomer、一次 saveCustomers 批量保存（单次刷新，JDBC批量插入）、CSV批量导入
+ * 各方法的结果均为每条客户的平均耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class CustomerWriteBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final int IMPORT_ROWS = 1000;
+
+    /**
+     * 预置数据量，写入时的唯一性检查和索引维护在非空表上进行
+     */
+    private static final int SEED_ROWS = 10000;
+
+    private ConfigurableApplicationContext context;
+
+    private CustomerService customerService;
+
+    private CustomerImportService customerImportService;
+
+    private long nextPhone;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("write", Collections.<String, String>emptyMap());
+        BenchmarkApplication.seedCustomers(context, SEED_ROWS);
+        customerService = context.getBean(CustomerService.class);
+        customerImportService = context.getBean(CustomerImportService.class);
+        nextPhone = BenchmarkApplication.PHONE_BASE + SEED_ROWS;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Customer saveSingle() {
+        return customerService.saveCustomer(newCustomer());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Customer> saveBatchInTransaction() {
+        List<Customer> customers = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            customers.add(newCustomer());
+        }
+        return customerService.saveCustomers(customers);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IMPORT_ROWS)
+    public ImportReport importCsv() throws IOException {
+        StringBuilder csv = new StringBuilder("name,phone,email,address,age,gender\n");
+        for (int i = 0; i < IMPORT_ROWS; i++) {
+            long phone = nextPhone++;
+            csv.append("导入客户,").append(phone).append(",import").append(phone)
+                    .append("@example.com,测试地址,30,MALE\n");
+        }
+        return customerImportService.importCsv(
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Customer newCustomer() {
+        long phone = nextPhone++;
+        return Customer.builder()
+                .name("基准客户")
+                .phone(String.valueOf(phone))
+                .email("bench" + phone + "@example.com")
+                .age(30)
+                .gender(Gender.MALE)
+                .build();
+    }
+}
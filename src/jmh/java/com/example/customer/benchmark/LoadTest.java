@@ -0,0 +1,356 @@
+package com.example.customer.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 端到端HTTP压测
+ * 在随机端口启动内嵌应用（内存H2），预置指定数量的客户后，由多个虚拟用户线程按权重混合执行
+ * 列表页、REST列表/详情/新增/修改/删除和登录请求。每个虚拟用户是闭环的：上一个请求返回后才发下一个。
+ * 结果按操作输出吞吐量和HdrHistogram延迟分布（.hgrm），并写入histograms.hlog便于跨版本对比；
+ * 配置了 max-p99-ms / max-error-rate 时超出阈值以退出码1结束，可作为发布前的回归门禁。
+ *
+ * 参数（--key=value）：users、rows、warmup（秒）、duration（秒）、think-ms、mix、max-p99-ms、max-error-rate、output
+ */
+public final class LoadTest {
+
+    enum Operation {
+        LIST_PAGE, API_LIST, DETAIL, CREATE, UPDATE, DELETE, LOGIN
+    }
+
+    private static final String USERNAME = "admin";
+
+    private static final String PASSWORD = "admin123";
+
+    private static final String DEFAULT_MIX = "list_page:20,api_list:30,detail:30,create:8,update:6,delete:4,login:2";
+
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\":(\\d+)");
+
+    /**
+     * 压测新增客户的手机号号段，每个虚拟用户占用其中一段
+     */
+    private static final long CREATE_PHONE_BASE = 16_000_000_000L;
+
+    private static final long PHONES_PER_USER = 10_000_000L;
+
+    private final Map<String, String> options;
+
+    private final int users;
+
+    private final int rows;
+
+    private final Operation[] schedule;
+
+    private final long thinkMillis;
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    private volatile boolean running = true;
+
+    private String baseUrl;
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+        this.users = intOption("users", 32);
+        this.rows = intOption("rows", 10000);
+        this.thinkMillis = intOption("think-ms", 0);
+        this.schedule = parseMix(option("mix", DEFAULT_MIX));
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.indexOf('=') > 2) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        System.exit(new LoadTest(options).run());
+    }
+
+    private int run() throws Exception {
+        // 所有虚拟用户共用admin账号，放开同一用户名的并发登录校验上限
+        Map<String, String> overrides = new HashMap<>();
+        overrides.put("server.port", "0");
+        overrides.put("security.login.verify.max-per-user", String.valueOf(users));
+        overrides.put("security.login.verify.max-per-ip", String.valueOf(users));
+        System.setProperty("http.maxConnections", String.valueOf(users));
+
+        ConfigurableApplicationContext context = BenchmarkApplication.start("loadtest", WebApplicationType.SERVLET, overrides);
+        try {
+            System.out.printf("Seeding %d customers...%n", rows);
+            BenchmarkApplication.seedCustomers(context, rows);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port;
+            return drive();
+        } finally {
+            context.close();
+        }
+    }
+
+    private int drive() throws Exception {
+        int warmupSeconds = intOption("warmup", 10);
+        int durationSeconds = intOption("duration", 60);
+        System.out.printf("Running %d users against %s: warmup %ds, measurement %ds%n",
+                users, baseUrl, warmupSeconds, durationSeconds);
+
+        ExecutorService workers = Executors.newFixedThreadPool(users);
+        for (int i = 0; i < users; i++) {
+            final int userIndex = i;
+            workers.submit(() -> runUser(userIndex));
+        }
+
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        // 丢弃预热阶段的数据
+        for (Operation operation : Operation.values()) {
+            recorders.get(operation).getIntervalHistogram();
+            errors.get(operation).reset();
+        }
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, recorders.get(operation).getIntervalHistogram());
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        running = false;
+        workers.shutdown();
+        workers.awaitTermination(2, TimeUnit.MINUTES);
+
+        return report(histograms, elapsedSeconds);
+    }
+
+    private void runUser(int userIndex) {
+        LoadTestSession session = new LoadTestSession(baseUrl);
+        Deque<Long> ownCustomers = new ArrayDeque<>();
+        long[] nextPhone = {CREATE_PHONE_BASE + userIndex * PHONES_PER_USER};
+        try {
+            while (running && !session.login(USERNAME, PASSWORD)) {
+                TimeUnit.MILLISECONDS.sleep(100);
+            }
+            while (running) {
+                Operation operation = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+                // 修改和删除只针对本用户新增的客户，没有时改为新增
+                if ((operation == Operation.UPDATE || operation == Operation.DELETE) && ownCustomers.isEmpty()) {
+                    operation = Operation.CREATE;
+                }
+                long begin = System.nanoTime();
+                boolean success;
+                try {
+                    success = execute(operation, session, ownCustomers, nextPhone);
+                } catch (IOException e) {
+                    success = false;
+                }
+                if (!running) {
+                    break;
+                }
+                recorders.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin));
+                if (!success) {
+                    errors.get(operation).increment();
+                }
+                if (thinkMillis > 0) {
+                    TimeUnit.MILLISECONDS.sleep(thinkMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.printf("User %d stopped: %s%n", userIndex, e);
+        }
+    }
+
+    private boolean execute(Operation operation, LoadTestSession session, Deque<Long> ownCustomers,
+                            long[] nextPhone) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (operation) {
+            case LIST_PAGE: {
+                String path = "/customers?page=" + random.nextInt(10);
+                if (random.nextBoolean()) {
+                    path += "&name=" + LoadTestSession.encode(BenchmarkApplication.name(random.nextInt(rows)).substring(0, 2));
+                }
+                return session.get(path).isSuccess();
+            }
+            case API_LIST: {
+                String path = "/api/customers?size=20&page=" + random.nextInt(10);
+                int filter = random.nextInt(3);
+                if (filter == 1) {
+                    path += "&phone=" + String.valueOf(BenchmarkApplication.PHONE_BASE + random.nextInt(rows)).substring(0, 8);
+                } else if (filter == 2) {
+                    path += "&email=" + LoadTestSession.encode("user" + random.nextInt(rows) + "@");
+                }
+                return session.get(path).isSuccess();
+            }
+            case DETAIL:
+                return session.get("/api/customers/" + (BenchmarkApplication.ID_BASE + random.nextInt(rows))).isSuccess();
+            case CREATE: {
+                long phone = nextPhone[0]++;
+                LoadTestSession.Response response = session.sendJson("POST", "/api/customers", customerJson(phone));
+                Matcher matcher = response.body != null ? ID_PATTERN.matcher(response.body) : null;
+                if (matcher != null && matcher.find()) {
+                    ownCustomers.push(Long.valueOf(matcher.group(1)));
+                }
+                return response.isSuccess();
+            }
+            case UPDATE: {
+                long id = ownCustomers.peek();
+                long phone = nextPhone[0]++;
+                return session.sendJson("PUT", "/api/customers/" + id, customerJson(phone)).isSuccess();
+            }
+            case DELETE:
+                return session.delete("/api/customers/" + ownCustomers.pop()).isSuccess();
+            case LOGIN: {
+                LoadTestSession fresh = new LoadTestSession(baseUrl);
+                fresh.openLoginPage();
+                return fresh.submitLogin(USERNAME, PASSWORD);
+            }
+            default:
+                throw new IllegalStateException("Unknown operation " + operation);
+        }
+    }
+
+    private static String customerJson(long phone) {
+        return "{\"name\":\"压测客户\",\"phone\":\"" + phone + "\",\"email\":\"load" + phone
+                + "@example.com\",\"address\":\"压测地址\",\"age\":30,\"gender\":\"MALE\"}";
+    }
+
+    private int report(Map<Operation, Histogram> histograms, double elapsedSeconds) throws IOException {
+        File outputDir = new File(option("output", "target/loadtest"));
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Cannot create " + outputDir);
+        }
+        double maxP99Millis = doubleOption("max-p99-ms", 0);
+        double maxErrorRate = doubleOption("max-error-rate", 1.0);
+
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        List<String> violations = new ArrayList<>();
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.ROOT, "%-10s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "ops/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)"));
+
+        try (PrintStream log = new PrintStream(new FileOutputStream(new File(outputDir, "histograms.hlog")),
+                false, StandardCharsets.UTF_8.name())) {
+            HistogramLogWriter logWriter = new HistogramLogWriter(log);
+            logWriter.outputLogFormatVersion();
+            logWriter.outputLegend();
+            for (Operation operation : Operation.values()) {
+                Histogram histogram = histograms.get(operation);
+                long errorCount = errors.get(operation).sum();
+                totalErrors += errorCount;
+                total.add(histogram);
+                table.append(row(operation.name(), histogram, errorCount, elapsedSeconds));
+                writeDistribution(new File(outputDir, operation.name().toLowerCase(Locale.ROOT) + ".hgrm"), histogram);
+                histogram.setTag(operation.name());
+                logWriter.outputIntervalHistogram(histogram);
+
+                double p99 = histogram.getValueAtPercentile(99) / 1000.0;
+                if (maxP99Millis > 0 && histogram.getTotalCount() > 0 && p99 > maxP99Millis) {
+                    violations.add(String.format(Locale.ROOT, "%s p99 %.2f ms > %.2f ms", operation, p99, maxP99Millis));
+                }
+            }
+        }
+        table.append(row("TOTAL", total, totalErrors, elapsedSeconds));
+        writeDistribution(new File(outputDir, "total.hgrm"), total);
+
+        double errorRate = total.getTotalCount() > 0 ? (double) totalErrors / total.getTotalCount() : 0;
+        if (errorRate > maxErrorRate) {
+            violations.add(String.format(Locale.ROOT, "error rate %.4f > %.4f", errorRate, maxErrorRate));
+        }
+
+        String summary = String.format(Locale.ROOT, "users=%d rows=%d duration=%.1fs%n", users, rows, elapsedSeconds) + table;
+        try (PrintStream out = new PrintStream(new FileOutputStream(new File(outputDir, "summary.txt")),
+                false, StandardCharsets.UTF_8.name())) {
+            out.print(summary);
+        }
+        System.out.print(summary);
+        System.out.printf("Histograms written to %s%n", outputDir.getAbsolutePath());
+
+        for (String violation : violations) {
+            System.out.println("FAILED: " + violation);
+        }
+        return violations.isEmpty() ? 0 : 1;
+    }
+
+    private static String row(String name, Histogram histogram, long errorCount, double elapsedSeconds) {
+        return String.format(Locale.ROOT, "%-10s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                name,
+                histogram.getTotalCount(),
+                errorCount,
+                histogram.getTotalCount() / elapsedSeconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    /**
+     * 输出HdrHistogram百分位分布，数值单位为毫秒
+     */
+    private static void writeDistribution(File file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(new FileOutputStream(file), false, StandardCharsets.UTF_8.name())) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    /**
+     * 按权重展开为操作表，随机取下标即按权重抽样
+     */
+    private static Operation[] parseMix(String mix) {
+        List<Operation> expanded = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            Operation operation = Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+            int weight = Integer.parseInt(parts[1].trim());
+            for (int i = 0; i < weight; i++) {
+                expanded.add(operation);
+            }
+        }
+        if (expanded.isEmpty()) {
+            throw new IllegalArgumentException("Empty workload mix: " + mix);
+        }
+        return expanded.toArray(new Operation[0]);
+    }
+
+    private String option(String name, String defaultValue) {
+        String value = options.get(name);
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(option(name, String.valueOf(defaultValue)));
+    }
+
+    private double doubleOption(String name, double defaultValue) {
+        return Double.parseDouble(option(name, String.valueOf(defaultValue)));
+    }
+}
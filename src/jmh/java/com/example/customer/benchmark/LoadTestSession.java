@@ -0,0 +1,180 @@
+package com.example.customer.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 压测中的一个虚拟用户会话
+ * 基于HttpURLConnection（JDK自带的keep-alive连接池），自行维护JSESSIONID和CSRF令牌
+ */
+final class LoadTestSession {
+
+    private static final Pattern CSRF_PATTERN = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+
+    private static final String SESSION_COOKIE = "JSESSIONID";
+
+    private final String baseUrl;
+
+    private String sessionId;
+
+    private String csrfToken;
+
+    LoadTestSession(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    static final class Response {
+
+        final int status;
+
+        final String body;
+
+        final String location;
+
+        Response(int status, String body, String location) {
+            this.status = status;
+            this.body = body;
+            this.location = location;
+        }
+
+        boolean isSuccess() {
+            return status < 400;
+        }
+    }
+
+    /**
+     * 打开登录页，取得会话和登录表单的CSRF令牌
+     */
+    void openLoginPage() throws IOException {
+        Response page = request("GET", "/login", null, null, true);
+        csrfToken = extractCsrf(page.body);
+    }
+
+    /**
+     * 提交登录表单；成功时跳转到客户列表，失败时跳转到 /login?error=...
+     */
+    boolean submitLogin(String username, String password) throws IOException {
+        String form = "username=" + encode(username) + "&password=" + encode(password) + "&_csrf=" + encode(csrfToken);
+        Response response = request("POST", "/login", "application/x-www-form-urlencoded", form, false);
+        return response.status == HttpURLConnection.HTTP_MOVED_TEMP
+                && response.location != null && !response.location.contains("error");
+    }
+
+    /**
+     * 登录后会话ID和CSRF令牌都会更换，从新建客户表单页重新读取令牌
+     */
+    void refreshCsrf() throws IOException {
+        Response page = request("GET", "/customers/new", null, null, true);
+        csrfToken = extractCsrf(page.body);
+    }
+
+    boolean login(String username, String password) throws IOException {
+        openLoginPage();
+        if (!submitLogin(username, password)) {
+            return false;
+        }
+        refreshCsrf();
+        return csrfToken != null;
+    }
+
+    Response get(String path) throws IOException {
+        return request("GET", path, null, null, false);
+    }
+
+    Response getWithBody(String path) throws IOException {
+        return request("GET", path, null, null, true);
+    }
+
+    Response sendJson(String method, String path, String json) throws IOException {
+        return request(method, path, "application/json", json, true);
+    }
+
+    Response delete(String path) throws IOException {
+        return request("DELETE", path, null, null, false);
+    }
+
+    static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Response request(String method, String path, String contentType, String body, boolean keepBody)
+            throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setInstanceFollowRedirects(false);
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(60000);
+        if (sessionId != null) {
+            connection.setRequestProperty("Cookie", SESSION_COOKIE + "=" + sessionId);
+        }
+        if (csrfToken != null && !"GET".equals(method)) {
+            connection.setRequestProperty("X-CSRF-TOKEN", csrfToken);
+        }
+        if (body != null) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", contentType);
+            connection.setFixedLengthStreamingMode(bytes.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(bytes);
+            }
+        }
+        int status = connection.getResponseCode();
+        rememberSession(connection.getHeaderFields().get("Set-Cookie"));
+        String content = readFully(status >= 400 ? connection.getErrorStream() : connection.getInputStream(), keepBody);
+        return new Response(status, content, connection.getHeaderField("Location"));
+    }
+
+    private void rememberSession(List<String> cookies) {
+        if (cookies == null) {
+            return;
+        }
+        for (String cookie : cookies) {
+            if (cookie.startsWith(SESSION_COOKIE + "=")) {
+                int end = cookie.indexOf(';');
+                sessionId = cookie.substring(SESSION_COOKIE.length() + 1, end > 0 ? end : cookie.length());
+            }
+        }
+    }
+
+    /**
+     * 始终读完响应体，连接才能回到keep-alive连接池复用
+     */
+    private static String readFully(InputStream in, boolean keep) throws IOException {
+        if (in == null) {
+            return null;
+        }
+        try (InputStream stream = in) {
+            ByteArrayOutputStream buffer = keep ? new ByteArrayOutputStream() : null;
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = stream.read(chunk)) != -1) {
+                if (buffer != null) {
+                    buffer.write(chunk, 0, read);
+                }
+            }
+            return buffer != null ? new String(buffer.toByteArray(), StandardCharsets.UTF_8) : null;
+        }
+    }
+
+    private static String extractCsrf(String html) {
+        if (html == null) {
+            return null;
+        }
+        Matcher matcher = CSRF_PATTERN.matcher(html);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.customer.config;
+
+import com.example.customer.entity.User;
+import com.example.customer.event.UserChangedEvent;
+import com.example.customer.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 登录认证缓存
+ * 1. 用户缓存：用户名 -> 用户ID、密码哈希及构建好的权限列表，登录时不再查询 users/user_roles；
+ * 2. 凭证缓存（可选）：最近验证成功的凭证摘要，重复登录时跳过BCrypt校验。
+ *    摘要为 SHA-256(进程随机盐 + 用户名 + 密码哈希 + 密码)，不保存明文密码，进程重启后全部失效。
+ * 用户保存后根据变更事件失效对应条目
+ */
+@Component
+public class AuthenticationCache {
+
+    private static final int SALT_LENGTH = 32;
+
+    private final UserRepository userRepository;
+
+    private final Cache<String, CachedUser> users;
+
+    private final Cache<String, byte[]> verifiedCredentials;
+
+    private final byte[] salt = new byte[SALT_LENGTH];
+
+    @Autowired
+    public AuthenticationCache(UserRepository userRepository,
+                               @Value("${security.auth-cache.maximum-size:1000}") long maximumSize,
+                               @Value("${security.auth-cache.expire-after-write:5m}") Duration expireAfterWrite,
+                               @Value("${security.auth-cache.credentials.enabled:false}") boolean credentialsEnabled,
+                               @Value("${security.auth-cache.credentials.expire-after-write:2m}") Duration credentialsExpireAfterWrite) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        this.verifiedCredentials = credentialsEnabled
+                ? Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(credentialsExpireAfterWrite)
+                        .<String, byte[]>build()
+                : null;
+        new SecureRandom().nextBytes(salt);
+    }
+
+    /**
+     * @return 用户不存在时返回null（不存在的用户名不缓存）
+     */
+    public CachedUser getUser(String username) {
+        return users.get(username, key -> userRepository.findByUsername(key)
+                .map(CachedUser::new)
+                .orElse(null));
+    }
+
+    public boolean isVerified(CachedUser user, String password) {
+        if (verifiedCredentials == null) {
+            return false;
+        }
+        byte[] expected = verifiedCredentials.getIfPresent(user.getUsername());
+        return expected != null && MessageDigest.isEqual(expected, digest(user, password));
+    }
+
+    public void markVerified(CachedUser user, String password) {
+        if (verifiedCredentials != null) {
+            verifiedCredentials.put(user.getUsername(), digest(user, password));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.getUsername());
+        // 用户名被修改时旧用户名对应的条目只能按ID找到
+        if (event.getUserId() != null) {
+            users.asMap().values().stream()
+                    .filter(user -> event.getUserId().equals(user.getId()))
+                    .map(CachedUser::getUsername)
+                    .forEach(this::invalidate);
+        }
+    }
+
+    public void invalidate(String username) {
+        if (username == null) {
+            return;
+        }
+        users.invalidate(username);
+        if (verifiedCredentials != null) {
+            verifiedCredentials.invalidate(username);
+        }
+    }
+
+    public void invalidateAll() {
+        users.invalidateAll();
+        if (verifiedCredentials != null) {
+            verifiedCredentials.invalidateAll();
+        }
+    }
+
+    private byte[] digest(CachedUser user, String password) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(salt);
+            update(sha256, user.getUsername());
+            update(sha256, user.getPasswordHash());
+            update(sha256, password);
+            return sha256.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 各字段前写入长度，避免不同字段拼接后产生相同输入
+     */
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        digest.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        digest.update(bytes);
+    }
+
+    /**
+     * 认证所需的用户快照，不持有JPA实体
+     */
+    @Getter
+    @ToString(exclude = "passwordHash")
+    public static final class CachedUser {
+
+        private final Long id;
+
+        private final String username;
+
+        private final String passwordHash;
+
+        private final List<GrantedAuthority> authorities;
+
+        CachedUser(User user) {
+            this.id = user.getId();
+            this.username = user.getUsername();
+            this.passwordHash = user.getPassword();
+            List<GrantedAuthority> granted = new ArrayList<>();
+            for (User.Role role : user.getRoles()) {
+                granted.add(new SimpleGrantedAuthority("ROLE_" + role.name()));
+            }
+            // 如果没有角色，给一个默认角色
+            if (granted.isEmpty()) {
+                granted.add(new SimpleGrantedAuthority("ROLE_USER"));
+            }
+            this.authorities = Collections.unmodifiableList(granted);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.customer.config;
+
+import com.example.customer.exception.GlobalExceptionHandler;
+import com.example.customer.util.GradientConcurrencyLimit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 自适应并发限制（负载保护）
+ * 数据库变慢时，请求会在连接池上排队直到 connection-timeout，Tomcat线程被占满后连健康检查也无法响应。
+ * 本过滤器位于所有过滤器之前，API、页面、登录三组请求各自按观测延迟调整并发上限（GradientConcurrencyLimit），
+ * 超出上限的请求立即返回503和Retry-After，不排队；各组上限之和应小于Tomcat线程数，留出线程给健康检查和静态资源。
+ * 只有过载信号（503/504、连接池取连接超时、查询超时）计为失败并收缩上限，501和普通的程序错误不计入。
+ * 指标：http.server.concurrency.limit / inflight（按组）、http.server.concurrency.rejected
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String BUSY_MESSAGE = "服务繁忙，请稍后重试";
+
+    /**
+     * 限流分组
+     */
+    enum Group {
+        API("api", 20, 4, 100),
+        PAGES("pages", 10, 2, 50),
+        LOGIN("login", 5, 1, 20);
+
+        private final String key;
+
+        private final int defaultInitial;
+
+        private final int defaultMin;
+
+        private final int defaultMax;
+
+        Group(String key, int defaultInitial, int defaultMin, int defaultMax) {
+            this.key = key;
+            this.defaultInitial = defaultInitial;
+            this.defaultMin = defaultMin;
+            this.defaultMax = defaultMax;
+        }
+    }
+
+    private final Map<Group, GradientConcurrencyLimit> limits = new EnumMap<>(Group.class);
+
+    private final Map<Group, Counter> rejected = new EnumMap<>(Group.class);
+
+    private final ObjectMapper objectMapper;
+
+    private final long retryAfterSeconds;
+
+    @Autowired
+    public ConcurrencyLimitFilter(MeterRegistry meterRegistry, ObjectMapper objectMapper, Environment environment) {
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = Math.max(1, environment.getProperty("concurrency-limit.retry-after",
+                Duration.class, Duration.ofSeconds(1)).getSeconds());
+        double tolerance = environment.getProperty("concurrency-limit.tolerance", Double.class, 1.5);
+        double smoothing = environment.getProperty("concurrency-limit.smoothing", Double.class, 0.2);
+        double backoffRatio = environment.getProperty("concurrency-limit.backoff-ratio", Double.class, 0.9);
+        Duration window = environment.getProperty("concurrency-limit.window", Duration.class, Duration.ofSeconds(1));
+        int minWindowSamples = environment.getProperty("concurrency-limit.min-window-samples", Integer.class, 10);
+
+        for (Group group : Group.values()) {
+            String prefix = "concurrency-limit." + group.key + ".";
+            GradientConcurrencyLimit limit = new GradientConcurrencyLimit(
+                    environment.getProperty(prefix + "initial-limit", Integer.class, group.defaultInitial),
+                    environment.getProperty(prefix + "min-limit", Integer.class, group.defaultMin),
+                    environment.getProperty(prefix + "max-limit", Integer.class, group.defaultMax),
+                    tolerance, smoothing, backoffRatio, window.toNanos(), minWindowSamples);
+            limits.put(group, limit);
+            Gauge.builder("http.server.concurrency.limit", limit, GradientConcurrencyLimit::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("group", group.key)
+                    .register(meterRegistry);
+            Gauge.builder("http.server.concurrency.inflight", limit, GradientConcurrencyLimit::getInflight)
+                    .description("Requests currently holding a concurrency permit")
+                    .tag("group", group.key)
+                    .register(meterRegistry);
+            Gauge.builder("http.server.concurrency.rtt.baseline", limit, GradientConcurrencyLimit::getLongRttMillis)
+                    .description("Long-term average latency the limit is compared against")
+                    .tag("group", group.key)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            rejected.put(group, Counter.builder("http.server.concurrency.rejected")
+                    .description("Requests rejected with 503 because the concurrency limit was reached")
+                    .tag("group", group.key)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 健康检查、监控、静态资源和SSE长连接不限流
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return uri.startsWith("/actuator/") || uri.startsWith("/css/") || uri.startsWith("/js/")
+                || uri.startsWith("/h2-console") || uri.equals("/favicon.ico") || uri.equals("/error")
+                || uri.equals("/api/customers/changes");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Group group = group(request.getRequestURI());
+        GradientConcurrencyLimit limit = limits.get(group);
+        if (!limit.tryAcquire()) {
+            rejected.get(group).increment();
+            reject(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            chain.doFilter(request, response);
+            // GlobalExceptionHandler把连接池超时、查询超时转换为503；网关超时为504
+            int status = response.getStatus();
+            dropped = status == HttpStatus.SERVICE_UNAVAILABLE.value() || status == HttpStatus.GATEWAY_TIMEOUT.value();
+        } catch (IOException | ServletException | RuntimeException e) {
+            // 未经异常处理器的异常（如登录时查询用户）
+            dropped = GlobalExceptionHandler.isOverload(e);
+            throw e;
+        } finally {
+            limit.release(System.nanoTime() - start, !isBulk(request.getRequestURI()), dropped);
+        }
+    }
+
+    private static Group group(String uri) {
+        if (uri.startsWith("/api/")) {
+            return Group.API;
+        }
+        if (uri.equals("/login")) {
+            return Group.LOGIN;
+        }
+        return Group.PAGES;
+    }
+
+    /**
+     * 导入导出的耗时取决于数据量，不作为延迟样本
+     */
+    private static boolean isBulk(String uri) {
+        return uri.startsWith("/api/customers/import") || uri.startsWith("/api/customers/export");
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        String accept = request.getHeader("Accept");
+        if (request.getRequestURI().startsWith("/api/")
+                || (accept != null && accept.contains(MediaType.APPLICATION_JSON_VALUE))) {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            GlobalExceptionHandler.ErrorResponse body = new GlobalExceptionHandler.ErrorResponse(
+                    HttpStatus.SERVICE_UNAVAILABLE.value(),
+                    BUSY_MESSAGE,
+                    request.getRequestURI(),
+                    LocalDateTime.now()
+            );
+            objectMapper.writeValue(response.getOutputStream(), body);
+            return;
+        }
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(BUSY_MESSAGE);
+    }
+}
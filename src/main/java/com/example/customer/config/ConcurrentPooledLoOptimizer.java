@@ -0,0 +1,138 @@
+package com.example.customer.config;
+
+import org.hibernate.HibernateException;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 号段式主键优化器（pooled-lo语义）：表中的值是下一个号段的起点，每次取号段时加 increment_size。
+ * 与Hibernate自带的 pooled-lo 相同，但号段内取号只是一次原子自增，不加锁；
+ * 只有号段用完时才串行地从表中取下一段（TableGenerator在独立事务中 SELECT ... FOR UPDATE 再按旧值条件UPDATE，多实例安全）。
+ * 取号段要另占一个连接，而等待号段的线程各自已持有事务连接：并发插入数不小于连接池大小时会互相等到连接超时。
+ * 因此号段用到一半时由取到中点的线程预取下一段，其他线程继续使用当前号段；首个号段在启动时预取（见 IdGeneratorWarmUp）。
+ * 多个实例各自持有不同号段，ID在全局唯一但不保证按插入顺序递增
+ */
+public class ConcurrentPooledLoOptimizer implements Optimizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrentPooledLoOptimizer.class);
+
+    /**
+     * 实体 @GenericGenerator 中 optimizer 参数使用的类名
+     */
+    public static final String CLASS_NAME = "com.example.customer.config.ConcurrentPooledLoOptimizer";
+
+    /**
+     * 号段表及默认号段大小
+     */
+    public static final String TABLE_NAME = "id_generators";
+
+    public static final String INCREMENT_SIZE = "50";
+
+    private final Class<?> returnClass;
+
+    private final int incrementSize;
+
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+
+    /**
+     * 预取的下一个号段，由 this 保护
+     */
+    private Block prefetched;
+
+    private volatile IntegralDataTypeHolder lastSourceValue;
+
+    /**
+     * OptimizerFactory 按该签名反射创建
+     */
+    public ConcurrentPooledLoOptimizer(Class<?> returnClass, int incrementSize) {
+        if (returnClass == null) {
+            throw new HibernateException("return class is required");
+        }
+        if (incrementSize < 1) {
+            throw new HibernateException("increment size cannot be less than 1");
+        }
+        this.returnClass = returnClass;
+        this.incrementSize = incrementSize;
+    }
+
+    @Override
+    public Serializable generate(AccessCallback callback) {
+        while (true) {
+            Block block = current.get();
+            long value = block.next.getAndIncrement();
+            if (value < block.end) {
+                if (value == block.end - (incrementSize + 1) / 2) {
+                    prefetch(block, callback);
+                }
+                return IdentifierGeneratorHelper.getIntegralDataTypeHolder(returnClass).initialize(value).makeValue();
+            }
+            synchronized (this) {
+                // 等锁期间其他线程可能已经换上了新号段
+                if (current.get() == block) {
+                    Block nextBlock = prefetched != null ? prefetched : fetch(callback);
+                    prefetched = null;
+                    current.set(nextBlock);
+                }
+            }
+        }
+    }
+
+    /**
+     * 预取失败（如取连接超时）不影响本次取号，号段用完时再取
+     */
+    private synchronized void prefetch(Block block, AccessCallback callback) {
+        if (prefetched != null || current.get() != block) {
+            return;
+        }
+        try {
+            prefetched = fetch(callback);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to prefetch identifier block: {}", e.getMessage());
+        }
+    }
+
+    private Block fetch(AccessCallback callback) {
+        IntegralDataTypeHolder source = callback.getNextValue();
+        lastSourceValue = source.copy();
+        long lo = source.makeValue().longValue();
+        return new Block(lo, lo + incrementSize);
+    }
+
+    @Override
+    public IntegralDataTypeHolder getLastSourceValue() {
+        return lastSourceValue;
+    }
+
+    @Override
+    public int getIncrementSize() {
+        return incrementSize;
+    }
+
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        return true;
+    }
+
+    /**
+     * 号段 [next, end)；用完后 next 会继续超出 end，不影响判断
+     */
+    private static final class Block {
+
+        final AtomicLong next;
+
+        final long end;
+
+        Block(long lo, long end) {
+            this.next = new AtomicLong(lo);
+            this.end = end;
+        }
+    }
+}
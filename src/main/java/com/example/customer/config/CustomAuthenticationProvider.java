@@ -1,7 +1,8 @@
 package com.example.customer.config;
 
-import com.example.customer.entity.User;
-import com.example.customer.repository.UserRepository;
+import com.example.customer.exception.LoginThrottledException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,77 +11,94 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.HashMap;
+import java.util.Map;
 
 @Component
 public class CustomAuthenticationProvider implements AuthenticationProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomAuthenticationProvider.class);
 
-    private final UserRepository userRepository;
-    private PasswordEncoder passwordEncoder;
+    private final AuthenticationCache authenticationCache;
+    private final PasswordVerificationExecutor passwordVerifier;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timersByOutcome = new HashMap<>();
 
     @Autowired
-    public CustomAuthenticationProvider(UserRepository userRepository) {
-        this.userRepository = userRepository;
-    }
-
-    @Autowired
-    public void setPasswordEncoder(PasswordEncoder passwordEncoder) {
-        this.passwordEncoder = passwordEncoder;
+    public CustomAuthenticationProvider(AuthenticationCache authenticationCache,
+                                        PasswordVerificationExecutor passwordVerifier,
+                                        MeterRegistry meterRegistry) {
+        this.authenticationCache = authenticationCache;
+        this.passwordVerifier = passwordVerifier;
+        this.meterRegistry = meterRegistry;
+        for (String outcome : new String[]{"success", "bad_credentials", "throttled", "error"}) {
+            timersByOutcome.put(outcome, Timer.builder("auth.authenticate")
+                    .description("Login authentication latency")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
     }
 
     @Override
     public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Authentication result = doAuthenticate(authentication);
+            outcome = "success";
+            return result;
+        } catch (LoginThrottledException e) {
+            outcome = "throttled";
+            throw e;
+        } catch (BadCredentialsException e) {
+            outcome = "bad_credentials";
+            throw e;
+        } finally {
+            sample.stop(timersByOutcome.get(outcome));
+        }
+    }
+
+    private Authentication doAuthenticate(Authentication authentication) {
         String username = authentication.getName();
         String password = authentication.getCredentials().toString();
 
-        logger.info("尝试认证用户: {}", username);
+        logger.debug("尝试认证用户: {}", username);
 
-        // 查找用户
-        Optional<User> userOptional = userRepository.findByUsername(username);
-        if (!userOptional.isPresent()) {
-            logger.error("用户不存在: {}", username);
+        // 查找用户（优先读取认证缓存）
+        AuthenticationCache.CachedUser user = authenticationCache.getUser(username);
+        if (user == null) {
+            logger.warn("用户不存在: {}", username);
             throw new BadCredentialsException("用户名或密码错误");
         }
 
-        User user = userOptional.get();
-        logger.info("找到用户: {}, 角色数量: {}", username, user.getRoles().size());
-        logger.info("用户角色: {}", user.getRoles());
-
-        // 验证密码 - 直接使用BCrypt验证明文密码
-        if (passwordEncoder.matches(password, user.getPassword())) {
-            logger.info("密码验证成功");
-
-            List<SimpleGrantedAuthority> authorities = user.getRoles().stream()
-                    .map(role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
-                    .collect(Collectors.toList());
-
-            logger.info("授予的权限: {}", authorities);
-
-            // 如果没有角色，给一个默认角色
-            if (authorities.isEmpty()) {
-                logger.warn("用户没有角色，授予默认USER角色");
-                authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
-            }
+        // 近期已验证过相同凭证时跳过BCrypt校验
+        if (authenticationCache.isVerified(user, password)) {
+            logger.debug("凭证缓存命中: {}", username);
+            return new UsernamePasswordAuthenticationToken(username, password, user.getAuthorities());
+        }
 
-            return new UsernamePasswordAuthenticationToken(
-                username,
-                password,
-                authorities
-            );
+        // 验证密码 - BCrypt校验在独立线程池中执行，繁忙时直接拒绝
+        if (passwordVerifier.matches(username, remoteAddress(authentication), password, user.getPasswordHash())) {
+            authenticationCache.markVerified(user, password);
+            logger.debug("认证成功: {}, 权限: {}", username, user.getAuthorities());
+            return new UsernamePasswordAuthenticationToken(username, password, user.getAuthorities());
         }
 
-        logger.error("密码验证失败");
+        logger.warn("密码验证失败: {}", username);
         throw new BadCredentialsException("用户名或密码错误");
     }
 
+    private static String remoteAddress(Authentication authentication) {
+        Object details = authentication.getDetails();
+        return details instanceof WebAuthenticationDetails
+                ? ((WebAuthenticationDetails) details).getRemoteAddress()
+                : null;
+    }
+
     @Override
     public boolean supports(Class<?> authentication) {
         return authentication.equals(UsernamePasswordAuthenticationToken.class);
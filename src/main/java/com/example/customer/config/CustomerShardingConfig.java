@@ -0,0 +1,86 @@
+package com.example.customer.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 客户分片（customer.sharding.enabled=true 时启用）
+ * 每个分片一个连接池；跨分片查询在有界线程池上并行执行，队列满时由调用线程自己执行，不会无限堆积
+ */
+@Configuration
+@ConditionalOnProperty(name = "customer.sharding.enabled", havingValue = "true")
+public class CustomerShardingConfig {
+
+    private static final String SCHEMA_SCRIPT = "shard-schema.sql";
+
+    @Bean
+    public CustomerShards customerShards(
+            MeterRegistry meterRegistry,
+            @Value("${customer.sharding.urls}") List<String> urls,
+            @Value("${customer.sharding.username:${spring.datasource.username:}}") String username,
+            @Value("${customer.sharding.password:${spring.datasource.password:}}") String password,
+            @Value("${customer.sharding.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${customer.sharding.query-threads:8}") int queryThreads,
+            @Value("${customer.sharding.query-queue-capacity:256}") int queryQueueCapacity,
+            @Value("${customer.sharding.query-timeout:5s}") Duration queryTimeout,
+            @Value("${customer.sharding.initialize-schema:false}") boolean initializeSchema) {
+        List<HikariDataSource> dataSources = new ArrayList<>();
+        for (String url : urls) {
+            if (url.trim().isEmpty()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("shard-" + dataSources.size());
+            config.setJdbcUrl(url.trim());
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(maximumPoolSize);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            HikariDataSource dataSource = new HikariDataSource(config);
+            if (initializeSchema) {
+                DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource(SCHEMA_SCRIPT)),
+                        dataSource);
+            }
+            dataSources.add(dataSource);
+        }
+        if (dataSources.isEmpty()) {
+            throw new IllegalStateException("customer.sharding.urls must list at least one shard");
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(queryThreads, queryThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queryQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "customer-shard-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        Gauge.builder("customer.shard.query.queue.depth", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+
+        Timer scatterTimer = Timer.builder("customer.shard.scatter")
+                .description("Time to query all shards in parallel and collect the results")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        return new CustomerShards(dataSources, executor, queryTimeout, scatterTimer);
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.customer.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * 客户分片：各分片的连接池、事务模板，以及按手机号/ID定位分片和并行查询所有分片的方法。
+ * 客户ID = 分片内自增ID * 分片数 + 分片序号，由ID即可算出所在分片，因此分片数确定后不能再修改
+ */
+public class CustomerShards implements DisposableBean {
+
+    private final List<Shard> shards;
+
+    private final ExecutorService executor;
+
+    private final long timeoutNanos;
+
+    private final Timer scatterTimer;
+
+    public CustomerShards(List<HikariDataSource> dataSources, ExecutorService executor, Duration timeout,
+                          Timer scatterTimer) {
+        List<Shard> list = new ArrayList<>(dataSources.size());
+        for (HikariDataSource dataSource : dataSources) {
+            list.add(new Shard(list.size(), dataSource));
+        }
+        this.shards = Collections.unmodifiableList(list);
+        this.executor = executor;
+        this.timeoutNanos = timeout.toNanos();
+        this.scatterTimer = scatterTimer;
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    public List<Shard> all() {
+        return shards;
+    }
+
+    public Shard get(int index) {
+        return shards.get(index);
+    }
+
+    /**
+     * 手机号所在分片：CRC32在不同JVM、不同版本间结果固定
+     */
+    public Shard forPhone(String phone) {
+        CRC32 crc = new CRC32();
+        crc.update(phone.getBytes(StandardCharsets.UTF_8));
+        return shards.get((int) (crc.getValue() % shards.size()));
+    }
+
+    /**
+     * @return ID不合法（非正数）时返回null
+     */
+    public Shard forId(Long id) {
+        if (id == null || id <= 0) {
+            return null;
+        }
+        return shards.get((int) (id % shards.size()));
+    }
+
+    /**
+     * 在所有分片上并行执行同一查询，按分片序号返回各分片的结果；任一分片失败或超时则整体失败
+     */
+    public <T> List<T> scatter(Function<Shard, T> query) {
+        if (shards.size() == 1) {
+            return Collections.singletonList(query.apply(shards.get(0)));
+        }
+        long start = System.nanoTime();
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        try {
+            for (Shard shard : shards) {
+                futures.add(executor.submit(() -> query.apply(shard)));
+            }
+            List<T> results = new ArrayList<>(shards.size());
+            long deadline = start + timeoutNanos;
+            for (Future<T> future : futures) {
+                results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Shard query timed out after " + Duration.ofNanos(timeoutNanos), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shard queries", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            scatterTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        for (Shard shard : shards) {
+            shard.dataSource.close();
+        }
+    }
+
+    public final class Shard {
+
+        private final int index;
+
+        private final HikariDataSource dataSource;
+
+        private final JdbcTemplate jdbcTemplate;
+
+        private final TransactionTemplate transactionTemplate;
+
+        Shard(int index, HikariDataSource dataSource) {
+            this.index = index;
+            this.dataSource = dataSource;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public JdbcTemplate getJdbcTemplate() {
+            return jdbcTemplate;
+        }
+
+        public TransactionTemplate getTransactionTemplate() {
+            return transactionTemplate;
+        }
+
+        public long toGlobalId(long localId) {
+            return localId * shards.size() + index;
+        }
+
+        public long toLocalId(long globalId) {
+            return globalId / shards.size();
+        }
+
+        /**
+         * 键集分页的ID下界：全局ID大于globalId ⇔ 分片内ID大于返回值
+         */
+        public long localIdAbove(long globalId) {
+            return Math.floorDiv(globalId - index, shards.size());
+        }
+
+        /**
+         * 键集分页的ID上界：全局ID小于globalId ⇔ 分片内ID小于返回值
+         */
+        public long localIdBelow(long globalId) {
+            return -Math.floorDiv(index - globalId, shards.size());
+        }
+    }
+}
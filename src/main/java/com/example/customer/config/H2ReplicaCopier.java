@@ -0,0 +1,73 @@
+package com.example.customer.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 本地开发用：以H2内存库模拟从库，定期把主库整体快照复制到各从库（SCRIPT / RUNSCRIPT），
+ * 两次复制之间从库的数据落后于主库，可用来观察读写分离和read-your-writes窗口。
+ * 仅在配置了 customer.datasource.replicas.h2-copy-interval-ms 时启用
+ */
+@Component
+@ConditionalOnProperty(name = "customer.datasource.replicas.h2-copy-interval-ms")
+public class H2ReplicaCopier {
+
+    private static final Logger logger = LoggerFactory.getLogger(H2ReplicaCopier.class);
+
+    private final ReadWriteRoutingDataSource routingDataSource;
+
+    @Autowired
+    public H2ReplicaCopier(ReadWriteRoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
+    /**
+     * 启动时先同步复制一次，保证ApplicationReadyEvent中加载的内存索引能从从库读到数据
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void initialCopy() {
+        copy();
+    }
+
+    @Scheduled(fixedDelayString = "${customer.datasource.replicas.h2-copy-interval-ms}",
+               initialDelayString = "${customer.datasource.replicas.h2-copy-interval-ms}")
+    public void copy() {
+        File script = null;
+        try {
+            script = File.createTempFile("customer-replica-", ".sql");
+            String path = script.getAbsolutePath().replace("'", "''");
+            try (Connection connection = routingDataSource.getPrimary().getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("SCRIPT TO '" + path + "'");
+            }
+            for (DataSource replica : routingDataSource.getReplicas()) {
+                try (Connection connection = replica.getConnection();
+                     Statement statement = connection.createStatement()) {
+                    statement.execute("DROP ALL OBJECTS");
+                    statement.execute("RUNSCRIPT FROM '" + path + "'");
+                } catch (SQLException e) {
+                    logger.warn("Failed to copy primary H2 database to replica: {}", e.getMessage());
+                }
+            }
+        } catch (IOException | SQLException e) {
+            logger.warn("Failed to snapshot primary H2 database: {}", e.getMessage());
+        } finally {
+            if (script != null && !script.delete()) {
+                script.deleteOnExit();
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.customer.config;
+
+import com.example.customer.entity.Customer;
+import com.example.customer.entity.User;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 启动时（data.sql执行后、开始接收请求前）为客户和用户各取一个号段。
+ * 否则首批并发插入会同时等待第一个号段，而取号段需要的额外连接被这些请求占满（见 ConcurrentPooledLoOptimizer）；
+ * 预取用掉的ID不再使用
+ */
+@Component
+public class IdGeneratorWarmUp implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorWarmUp.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public IdGeneratorWarmUp(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SessionFactoryImplementor factory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        try (Session session = factory.openSession()) {
+            session.beginTransaction();
+            for (Class<?> entity : new Class<?>[]{Customer.class, User.class}) {
+                factory.getMetamodel().entityPersister(entity).getIdentifierGenerator()
+                        .generate((SharedSessionContractImplementor) session, null);
+            }
+            session.getTransaction().commit();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to prefetch identifier blocks, first inserts will fetch them: {}", e.getMessage());
+        }
+    }
+}
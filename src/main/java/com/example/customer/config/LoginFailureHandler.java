@@ -0,0 +1,69 @@
+package com.example.customer.config;
+
+import com.example.customer.exception.GlobalExceptionHandler;
+import com.example.customer.exception.LoginThrottledException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * 登录失败处理
+ * 普通失败跳转 /login?error=true；登录被限流时返回429并附带Retry-After，
+ * 浏览器表单提交则跳转 /login?error=busy 显示繁忙提示
+ */
+@Component
+public class LoginFailureHandler extends SimpleUrlAuthenticationFailureHandler {
+
+    private static final String FAILURE_URL = "/login?error=true";
+
+    private static final String BUSY_URL = "/login?error=busy";
+
+    private final ObjectMapper objectMapper;
+
+    private final long retryAfterSeconds;
+
+    @Autowired
+    public LoginFailureHandler(ObjectMapper objectMapper,
+                               @Value("${security.login.retry-after-seconds:1}") long retryAfterSeconds) {
+        super(FAILURE_URL);
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response,
+                                        AuthenticationException exception) throws IOException, ServletException {
+        if (!(exception instanceof LoginThrottledException)) {
+            super.onAuthenticationFailure(request, response, exception);
+            return;
+        }
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        String accept = request.getHeader("Accept");
+        if (accept != null && accept.contains(MediaType.APPLICATION_JSON_VALUE)) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            GlobalExceptionHandler.ErrorResponse body = new GlobalExceptionHandler.ErrorResponse(
+                    HttpStatus.TOO_MANY_REQUESTS.value(),
+                    exception.getMessage(),
+                    request.getRequestURI(),
+                    LocalDateTime.now()
+            );
+            objectMapper.writeValue(response.getOutputStream(), body);
+            return;
+        }
+        getRedirectStrategy().sendRedirect(request, response, BUSY_URL);
+    }
+}
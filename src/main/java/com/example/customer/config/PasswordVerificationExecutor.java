@@ -0,0 +1,224 @@
+package com.example.customer.config;
+
+import com.example.customer.exception.LoginThrottledException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 独立的密码校验线程池
+ * BCrypt校验是CPU密集操作，放在固定大小的线程池和有界队列中执行，
+ * 登录风暴时最多占用 pool-size 个核心，不会拖垮客户页面的请求线程。
+ * 同一用户名、同一IP的并发校验数也有上限；队列已满、超过上限或等待超时时立即拒绝登录
+ */
+@Component
+public class PasswordVerificationExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordVerificationExecutor.class);
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int maxPerUser;
+
+    private final int maxPerIp;
+
+    private final long timeoutMillis;
+
+    private final ConcurrentHashMap<String, AtomicInteger> inFlightByUser = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, AtomicInteger> inFlightByIp = new ConcurrentHashMap<>();
+
+    private final Timer waitTimer;
+
+    private final Timer verifyTimer;
+
+    private final Counter rejectedSaturated;
+
+    private final Counter rejectedPerUser;
+
+    private final Counter rejectedPerIp;
+
+    private final Counter timeouts;
+
+    @Autowired
+    public PasswordVerificationExecutor(PasswordEncoder passwordEncoder,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${security.login.verify.pool-size:0}") int poolSize,
+                                        @Value("${security.login.verify.queue-capacity:64}") int queueCapacity,
+                                        @Value("${security.login.verify.max-per-user:2}") int maxPerUser,
+                                        @Value("${security.login.verify.max-per-ip:8}") int maxPerIp,
+                                        @Value("${security.login.verify.timeout:5s}") Duration timeout) {
+        this.passwordEncoder = passwordEncoder;
+        this.maxPerUser = maxPerUser;
+        this.maxPerIp = maxPerIp;
+        this.timeoutMillis = timeout.toMillis();
+        // 未配置时使用一半的CPU核心
+        int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-verify-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        // 启动时创建线程，避免在Tomcat请求线程中创建而继承Web应用的类加载器
+        this.executor.prestartAllCoreThreads();
+
+        this.waitTimer = Timer.builder("auth.verify.wait")
+                .description("Time a password check waits in the verification queue")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.verifyTimer = Timer.builder("auth.verify.duration")
+                .description("BCrypt verification time")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedSaturated = rejectedCounter(meterRegistry, "saturated");
+        this.rejectedPerUser = rejectedCounter(meterRegistry, "per_user");
+        this.rejectedPerIp = rejectedCounter(meterRegistry, "per_ip");
+        this.timeouts = rejectedCounter(meterRegistry, "timeout");
+        Gauge.builder("auth.verify.queue.depth", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("auth.verify.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("auth.verify.pool.size", executor, ThreadPoolExecutor::getMaximumPoolSize)
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("auth.verify.rejected")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 在校验线程池中执行 passwordEncoder.matches，调用线程等待结果
+     *
+     * @throws LoginThrottledException 超过并发上限、队列已满或等待超时
+     */
+    public boolean matches(String username, String remoteAddress, String rawPassword, String encodedPassword) {
+        String ipKey = remoteAddress != null ? remoteAddress : "unknown";
+        if (!acquire(inFlightByUser, username, maxPerUser)) {
+            rejectedPerUser.increment();
+            throw new LoginThrottledException("同一用户的登录请求过多，请稍后再试");
+        }
+        try {
+            if (!acquire(inFlightByIp, ipKey, maxPerIp)) {
+                rejectedPerIp.increment();
+                throw new LoginThrottledException("登录请求过多，请稍后再试");
+            }
+            try {
+                return submitAndWait(rawPassword, encodedPassword);
+            } finally {
+                release(inFlightByIp, ipKey);
+            }
+        } finally {
+            release(inFlightByUser, username);
+        }
+    }
+
+    private boolean submitAndWait(String rawPassword, String encodedPassword) {
+        long submitted = System.nanoTime();
+        Future<Boolean> future;
+        try {
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                waitTimer.record(started - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    return passwordEncoder.matches(rawPassword, encodedPassword);
+                } finally {
+                    verifyTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedSaturated.increment();
+            throw new LoginThrottledException("登录服务繁忙，请稍后再试");
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 仍在队列中的任务直接移除；已开始的BCrypt计算无法中断，结果被丢弃
+            future.cancel(false);
+            timeouts.increment();
+            throw new LoginThrottledException("登录服务繁忙，请稍后再试");
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("密码校验被中断", e);
+        } catch (ExecutionException e) {
+            throw new AuthenticationServiceException("密码校验失败", e.getCause());
+        }
+    }
+
+    /**
+     * 检查与计数在同一个 compute 中完成，与 release 的移除互斥；超限时计数保持不变
+     */
+    private static boolean acquire(ConcurrentHashMap<String, AtomicInteger> inFlight, String key, int limit) {
+        boolean[] acquired = new boolean[1];
+        inFlight.compute(key, (k, counter) -> {
+            AtomicInteger current = counter != null ? counter : new AtomicInteger();
+            if (current.get() >= limit) {
+                return counter;
+            }
+            current.incrementAndGet();
+            acquired[0] = true;
+            return current;
+        });
+        return acquired[0];
+    }
+
+    /**
+     * 计数归零时移除条目，避免大量不同用户名/IP撑大映射表
+     */
+    private static void release(ConcurrentHashMap<String, AtomicInteger> inFlight, String key) {
+        inFlight.computeIfPresent(key, (k, counter) -> counter.decrementAndGet() <= 0 ? null : counter);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("poolSize", executor.getMaximumPoolSize());
+        stats.put("activeCount", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+        stats.put("verifications", verifyTimer.count());
+        stats.put("rejectedSaturated", (long) rejectedSaturated.count());
+        stats.put("rejectedPerUser", (long) rejectedPerUser.count());
+        stats.put("rejectedPerIp", (long) rejectedPerIp.count());
+        stats.put("timeouts", (long) timeouts.count());
+        stats.put("averageWaitMillis", waitTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("averageVerifyMillis", verifyTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("maxVerifyMillis", verifyTimer.max(TimeUnit.MILLISECONDS));
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        logger.info("Password verification executor stopped");
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.customer.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离（customer.datasource.read-routing.enabled=true 时启用）
+ * 主库连接池沿用 spring.datasource.* 配置，从库连接池由 customer.datasource.replicas.* 配置；
+ * 对外暴露的数据源为 延迟取连接代理 -> 路由数据源 -> 主库/从库连接池
+ */
+@Configuration
+@ConditionalOnProperty(name = "customer.datasource.read-routing.enabled", havingValue = "true")
+public class ReadWriteRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            DataSourceProperties properties,
+            @Value("${customer.datasource.replicas.urls}") List<String> urls,
+            @Value("${customer.datasource.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${customer.datasource.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${customer.datasource.replicas.maximum-pool-size:20}") int maximumPoolSize,
+            @Value("${customer.datasource.replicas.connection-timeout:2s}") Duration connectionTimeout,
+            @Value("${customer.datasource.read-routing.balance:round-robin}") String balance,
+            @Value("${customer.datasource.read-routing.read-your-writes-window:5s}") Duration readYourWritesWindow) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (url.trim().isEmpty()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + (replicas.size() + 1));
+            config.setJdbcUrl(url.trim());
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setDriverClassName(properties.determineDriverClassName());
+            config.setMaximumPoolSize(maximumPoolSize);
+            config.setConnectionTimeout(connectionTimeout.toMillis());
+            config.setReadOnly(true);
+            // 从库不可用时照常启动，由健康检查摘除
+            config.setInitializationFailTimeout(-1);
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas,
+                ReadWriteRoutingDataSource.Balance.of(balance), readYourWritesWindow);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    /**
+     * 事务结束即归还连接：默认在Session关闭时才归还，开启OSIV时同一请求内先读后写会沿用从库连接
+     */
+    @Bean
+    public HibernatePropertiesCustomizer connectionReleaseCustomizer() {
+        return properties -> properties.put("hibernate.connection.handling_mode",
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.customer.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 读写分离数据源
+ * 只读事务（@Transactional(readOnly = true)）从健康的从库连接池中按轮询或最少活动连接选择一个，其余一律走主库。
+ * 当前用户的写事务提交后，在read-your-writes窗口内其只读事务仍走主库，避免读到复制延迟前的旧数据。
+ * 该窗口只对写入的用户生效，而进程内缓存和Hibernate二级缓存为所有用户共享：
+ * 填充共享缓存的查询通过 readFromPrimary 走主库，从库读到的实体和查询结果不写入二级缓存。
+ * 从库由定时健康检查标记可用性；获取从库连接失败时立即标记为不可用并回退主库，直到下次检查恢复。
+ * 需要由LazyConnectionDataSourceProxy包装：事务开始时只读标记尚未设置，真正取连接要推迟到第一条语句。
+ * 指标通过MeterBinder注册，数据源本身不依赖MeterRegistry（连接池指标反过来依赖数据源）
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements MeterBinder, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    public enum Balance {
+        ROUND_ROBIN,
+        LEAST_CONNECTIONS;
+
+        public static Balance of(String value) {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final Balance balance;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * 最近提交过写事务的用户名；窗口为0时不启用
+     */
+    private final Cache<String, Boolean> recentWriters;
+
+    private final AtomicLong primaryReads = new AtomicLong();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<HikariDataSource> replicaPools, Balance balance,
+                                      Duration readYourWritesWindow) {
+        this.primary = primary;
+        List<Replica> list = new ArrayList<>();
+        for (HikariDataSource pool : replicaPools) {
+            list.add(new Replica(pool));
+        }
+        this.replicas = Collections.unmodifiableList(list);
+        this.balance = balance;
+        this.recentWriters = readYourWritesWindow.isZero() ? null : Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindow)
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("customer.datasource.reads", primaryReads, AtomicLong::get)
+                .tag("target", "primary")
+                .description("Read-only transactions routed to the primary")
+                .register(registry);
+        for (Replica replica : replicas) {
+            String name = replica.pool.getPoolName();
+            FunctionCounter.builder("customer.datasource.reads", replica.reads, AtomicLong::get)
+                    .tag("target", name)
+                    .description("Read-only transactions routed to a replica")
+                    .register(registry);
+            Gauge.builder("customer.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("pool", name)
+                    .register(registry);
+            if (replica.pool.getMetricsTrackerFactory() == null) {
+                replica.pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return getReadConnection();
+        }
+        markWriteOnCommit();
+        return primary.getConnection();
+    }
+
+    /**
+     * 显式凭据的连接不参与读写路由，直接交给主库数据源
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        markWriteOnCommit();
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * 在主库上执行只读查询，用于结果会写入共享缓存的加载；未启用读写分离时直接执行。
+     * 连接在第一条语句时才获取，须在事务取得连接之前进入（例如在事务方法外调用）
+     */
+    public static <T> T readFromPrimary(Supplier<T> query) {
+        if (PRIMARY_READS.get() != null) {
+            return query.get();
+        }
+        PRIMARY_READS.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } finally {
+            PRIMARY_READS.remove();
+        }
+    }
+
+    private Connection getReadConnection() throws SQLException {
+        String user = currentUser();
+        if (PRIMARY_READS.get() == null
+                && (user == null || recentWriters == null || recentWriters.getIfPresent(user) == null)) {
+            Replica replica = choose();
+            if (replica != null) {
+                try {
+                    Connection connection = replica.pool.getConnection();
+                    replica.reads.incrementAndGet();
+                    skipSecondLevelCachePuts();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.markDown(e);
+                }
+            }
+        }
+        primaryReads.incrementAndGet();
+        return primary.getConnection();
+    }
+
+    private Replica choose() {
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy.add(replica);
+            }
+        }
+        if (healthy.isEmpty()) {
+            return null;
+        }
+        if (balance == Balance.LEAST_CONNECTIONS) {
+            Replica best = null;
+            int bestLoad = Integer.MAX_VALUE;
+            for (Replica replica : healthy) {
+                int load = replica.load();
+                if (load < bestLoad) {
+                    best = replica;
+                    bestLoad = load;
+                }
+            }
+            return best;
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+
+    /**
+     * 写事务提交后记录当前用户，开始read-your-writes窗口；只在事务内取主库连接时登记
+     */
+    private void markWriteOnCommit() {
+        if (recentWriters == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String user = currentUser();
+        if (user == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(user, Boolean.TRUE);
+            }
+        });
+    }
+
+    /**
+     * 当前事务的Hibernate会话改为只读二级缓存（CacheMode.GET），事务结束后恢复。
+     * 取连接发生在第一条语句执行时、结果装配之前，本事务加载的实体和查询结果都不会写入
+     */
+    private static void skipSecondLevelCachePuts() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (!(resource instanceof EntityManagerHolder)) {
+                continue;
+            }
+            Session session = ((EntityManagerHolder) resource).getEntityManager().unwrap(Session.class);
+            CacheMode previous = session.getCacheMode();
+            if (!previous.isPutEnabled()) {
+                continue;
+            }
+            session.setCacheMode(CacheMode.GET);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (session.isOpen()) {
+                        session.setCacheMode(previous);
+                    }
+                }
+            });
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    /**
+     * 定期检查从库连接，恢复或摘除从库
+     */
+    @Scheduled(fixedDelayString = "${customer.datasource.read-routing.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection()) {
+                if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    throw new SQLException("Connection validation failed");
+                }
+                replica.markUp();
+            } catch (SQLException e) {
+                replica.markDown(e);
+            }
+        }
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<DataSource> getReplicas() {
+        List<DataSource> list = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            list.add(replica.pool);
+        }
+        return list;
+    }
+
+    @Override
+    public void destroy() {
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    private static class Replica {
+
+        private final HikariDataSource pool;
+
+        private final AtomicLong reads = new AtomicLong();
+
+        private volatile boolean healthy = true;
+
+        Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+
+        int load() {
+            HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+            return mxBean == null ? 0 : mxBean.getActiveConnections() + mxBean.getThreadsAwaitingConnection();
+        }
+
+        void markUp() {
+            if (!healthy) {
+                healthy = true;
+                logger.info("Replica {} is back, resuming read routing", pool.getPoolName());
+            }
+        }
+
+        void markDown(SQLException e) {
+            if (healthy) {
+                healthy = false;
+                logger.warn("Replica {} is unavailable, reads fall back to primary: {}", pool.getPoolName(), e.getMessage());
+            }
+        }
+    }
+}
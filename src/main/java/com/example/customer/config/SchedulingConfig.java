@@ -0,0 +1,12 @@
+package com.example.customer.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 启用定时任务（内存计数器与数据库的定期校准等）
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,83 @@
+package com.example.customer.config;
+
+import com.example.customer.entity.Customer;
+import com.example.customer.entity.User;
+import com.example.customer.repository.CustomerRepository;
+import com.example.customer.repository.UserRepository;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate二级缓存与查询缓存（进程内Caffeine，经JCache接入）
+ * 每个区域在这里显式创建并设置容量和写入后过期时间，未创建的区域启动时报错，避免出现无上限的缓存。
+ * 区域是每个实例各自的进程内缓存，不会因其他实例的写入失效：写操作前的读取绕过缓存，用户区域的过期时间较短。
+ * 命中率通过Hibernate统计导出为 hibernate_second_level_cache_requests / hibernate_cache_query_requests
+ */
+@Configuration
+@ConditionalOnProperty(name = "jpa.second-level-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${jpa.second-level-cache.customer.maximum-size:10000}") long customerMaximumSize,
+            @Value("${jpa.second-level-cache.customer.expire-after-write:10m}") Duration customerExpireAfterWrite,
+            @Value("${jpa.second-level-cache.user.maximum-size:1000}") long userMaximumSize,
+            @Value("${jpa.second-level-cache.user.expire-after-write:1m}") Duration userExpireAfterWrite,
+            @Value("${jpa.second-level-cache.query.maximum-size:10000}") long queryMaximumSize,
+            @Value("${jpa.second-level-cache.query.expire-after-write:5m}") Duration queryExpireAfterWrite) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+
+        createRegion(cacheManager, Customer.CACHE_REGION, customerMaximumSize, customerExpireAfterWrite);
+        createRegion(cacheManager, User.CACHE_REGION, userMaximumSize, userExpireAfterWrite);
+        createRegion(cacheManager, User.ROLES_CACHE_REGION, userMaximumSize, userExpireAfterWrite);
+        createRegion(cacheManager, CustomerRepository.QUERY_CACHE_REGION, queryMaximumSize, queryExpireAfterWrite);
+        createRegion(cacheManager, UserRepository.QUERY_CACHE_REGION, userMaximumSize, queryExpireAfterWrite);
+        createRegion(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                queryMaximumSize, queryExpireAfterWrite);
+        // 每张表一条最后修改时间戳，查询缓存据此判断结果是否过期，不能被淘汰或过期
+        createRegion(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, 0, Duration.ZERO);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", "true");
+            properties.put("hibernate.cache.use_query_cache", "true");
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+        };
+    }
+
+    /**
+     * @param maximumSize 0表示不限容量
+     * @param expireAfterWrite 0表示不过期
+     */
+    private static void createRegion(CacheManager cacheManager, String name, long maximumSize, Duration expireAfterWrite) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // 按引用保存：Hibernate缓存的是拆解后的状态数组，不需要序列化复制
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        if (maximumSize > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        }
+        if (!expireAfterWrite.isZero()) {
+            configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+        }
+        cacheManager.createCache(name, configuration);
+    }
+}
@@ -2,20 +2,25 @@ package com.example.customer.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     private final CustomAuthenticationProvider customAuthenticationProvider;
+    private final LoginFailureHandler loginFailureHandler;
 
     @Autowired
-    public SecurityConfig(CustomAuthenticationProvider customAuthenticationProvider) {
+    public SecurityConfig(CustomAuthenticationProvider customAuthenticationProvider,
+                          LoginFailureHandler loginFailureHandler) {
         this.customAuthenticationProvider = customAuthenticationProvider;
+        this.loginFailureHandler = loginFailureHandler;
     }
 
     @Override
@@ -36,7 +41,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .loginPage("/login")
                 .loginProcessingUrl("/login")
                 .defaultSuccessUrl("/customers", true)
-                .failureUrl("/login?error=true")
+                .failureHandler(loginFailureHandler)
                 .permitAll()
                 .and()
             .logout()
@@ -49,4 +54,42 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .and()
             .headers().frameOptions().sameOrigin();  // 允许同源frame（H2控制台需要）
     }
-}
\ No newline at end of file
+
+    /**
+     * 监控端点单独一条过滤链：仅管理员可访问，Prometheus以HTTP Basic方式抓取；
+     * 页面和API的主过滤链只接受表单登录
+     */
+    @Configuration
+    @Order(1)
+    public static class ActuatorSecurityConfig extends WebSecurityConfigurerAdapter {
+
+        private final CustomAuthenticationProvider customAuthenticationProvider;
+
+        @Autowired
+        public ActuatorSecurityConfig(CustomAuthenticationProvider customAuthenticationProvider) {
+            this.customAuthenticationProvider = customAuthenticationProvider;
+        }
+
+        @Override
+        protected void configure(AuthenticationManagerBuilder auth) throws Exception {
+            auth.authenticationProvider(customAuthenticationProvider);
+        }
+
+        @Override
+        protected void configure(HttpSecurity http) throws Exception {
+            http
+                .antMatcher("/actuator/**")
+                .authorizeRequests()
+                    .antMatchers("/actuator/health").permitAll()
+                    .anyRequest().hasRole("ADMIN")
+                    .and()
+                .httpBasic()
+                    .and()
+                // 抓取请求不创建会话；已表单登录的管理员仍可凭会话访问
+                .sessionManagement()
+                    .sessionCreationPolicy(SessionCreationPolicy.NEVER)
+                    .and()
+                .csrf().disable();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.customer.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "monitoring.sql.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlInspectorConfig {
+
+    /**
+     * 向Hibernate注册语句统计（StatementInspector）和JDBC耗时统计（Session事件监听器）
+     */
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementStatsCustomizer() {
+        return properties -> {
+            properties.put("hibernate.session_factory.statement_inspector", new SqlStatementInspector());
+            properties.put("hibernate.session.events.auto", SqlTimingSessionListener.class.getName());
+        };
+    }
+}
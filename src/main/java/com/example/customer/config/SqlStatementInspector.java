@@ -0,0 +1,19 @@
+package com.example.customer.config;
+
+import com.example.customer.util.SqlStatementStats;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate准备每条SQL时回调，计入当前线程的语句统计；不修改SQL
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatementStats stats = SqlStatementStats.current();
+        if (stats != null) {
+            stats.recordStatement(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.customer.config;
+
+import com.example.customer.util.SqlStatementStats;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 按HTTP请求统计SQL语句数和JDBC耗时
+ * 在安全过滤器之前开始统计，登录认证的查询也计入。
+ * 结果写入响应头 X-SQL-Count / X-SQL-Time-Ms（响应开始输出时的值）并记录 sql.statements.per.request 指标；
+ * 语句数超过阈值或同一语句重复执行（疑似N+1）时输出WARN日志，其余请求输出DEBUG日志
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "monitoring.sql.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatementStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementStatsFilter.class);
+
+    static final String COUNT_HEADER = "X-SQL-Count";
+
+    static final String TIME_HEADER = "X-SQL-Time-Ms";
+
+    private final MeterRegistry meterRegistry;
+
+    private final int statementThreshold;
+
+    private final int repeatThreshold;
+
+    private final boolean headerEnabled;
+
+    @Autowired
+    public SqlStatementStatsFilter(MeterRegistry meterRegistry,
+                                   @Value("${monitoring.sql.statement-threshold:20}") int statementThreshold,
+                                   @Value("${monitoring.sql.repeat-threshold:5}") int repeatThreshold,
+                                   @Value("${monitoring.sql.header-enabled:true}") boolean headerEnabled) {
+        this.meterRegistry = meterRegistry;
+        this.statementThreshold = statementThreshold;
+        this.repeatThreshold = repeatThreshold;
+        this.headerEnabled = headerEnabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return uri.startsWith("/css/") || uri.startsWith("/js/") || uri.startsWith("/h2-console");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // 测试代码已在当前线程开始统计（MockMvc在调用线程上执行请求）时沿用，由测试代码结束
+        SqlStatementStats outer = SqlStatementStats.current();
+        SqlStatementStats stats = outer != null ? outer : SqlStatementStats.begin();
+        try {
+            chain.doFilter(request, headerEnabled ? new StatsHeaderResponse(response, stats) : response);
+        } finally {
+            if (outer == null) {
+                SqlStatementStats.end();
+            }
+            report(request, stats);
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlStatementStats stats) {
+        // 登录表单由安全过滤器处理，没有匹配的控制器路径
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString()
+                : "/login".equals(request.getRequestURI()) ? "/login" : "UNKNOWN";
+        DistributionSummary.builder("sql.statements.per.request")
+                .description("SQL statements executed per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getStatementCount());
+
+        List<Map.Entry<String, Integer>> repeated = stats.getRepeatedStatements(repeatThreshold);
+        if (stats.getStatementCount() > statementThreshold || !repeated.isEmpty()) {
+            logger.warn("{} {} executed {} SQL statements in {} ms{}",
+                    request.getMethod(), request.getRequestURI(), stats.getStatementCount(),
+                    formatMillis(stats), repeated.isEmpty() ? ""
+                            : ", possible N+1: " + repeated.get(0).getValue() + "x " + repeated.get(0).getKey());
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("{} {} executed {} SQL statements in {} ms",
+                    request.getMethod(), request.getRequestURI(), stats.getStatementCount(), formatMillis(stats));
+        }
+    }
+
+    private static String formatMillis(SqlStatementStats stats) {
+        return String.format(Locale.ROOT, "%.2f", stats.getJdbcMillis());
+    }
+
+    /**
+     * 在响应开始输出（提交响应头）前写入统计头
+     */
+    private static class StatsHeaderResponse extends HttpServletResponseWrapper {
+
+        private final SqlStatementStats stats;
+
+        private boolean written;
+
+        StatsHeaderResponse(HttpServletResponse response, SqlStatementStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        private void writeHeaders() {
+            if (!written && !isCommitted()) {
+                written = true;
+                setHeader(COUNT_HEADER, String.valueOf(stats.getStatementCount()));
+                setHeader(TIME_HEADER, formatMillis(stats));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.customer.config;
+
+import com.example.customer.util.SqlStatementStats;
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * 记录JDBC语句执行（含批量执行）耗时，计入当前线程的语句统计
+ * Hibernate为每个Session创建一个实例（hibernate.session.events.auto），Session内单线程使用
+ */
+public class SqlTimingSessionListener extends BaseSessionEventListener {
+
+    private long executeStart = -1;
+
+    private long batchStart = -1;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        executeStart = record(executeStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        batchStart = record(batchStart);
+    }
+
+    private static long record(long start) {
+        SqlStatementStats stats = SqlStatementStats.current();
+        if (start >= 0 && stats != null) {
+            stats.recordJdbcTime(System.nanoTime() - start);
+        }
+        return -1;
+    }
+}
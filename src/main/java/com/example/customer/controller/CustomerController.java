@@ -1,27 +1,62 @@
 package com.example.customer.controller;
 
+import com.example.customer.dto.CursorPage;
+import com.example.customer.dto.CustomerBatchRequest;
+import com.example.customer.dto.CustomerBatchResult;
+import com.example.customer.dto.CustomerDelta;
+import com.example.customer.dto.CustomerListItem;
+import com.example.customer.dto.CustomerPatch;
+import com.example.customer.dto.CustomerRevision;
+import com.example.customer.dto.CustomerStatistics;
+import com.example.customer.dto.ImportReport;
 import com.example.customer.entity.Customer;
 import com.example.customer.entity.Gender;
+import com.example.customer.exception.InvalidCustomerDataException;
+import com.example.customer.exception.ShardingUnsupportedException;
+import com.example.customer.service.CustomerBatchService;
+import com.example.customer.service.CustomerChangeFeed;
+import com.example.customer.service.CustomerExportService;
+import com.example.customer.service.CustomerImportService;
 import com.example.customer.service.CustomerService;
+import com.example.customer.service.CustomerSyncService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.web.csrf.CsrfToken;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.RequestContextUtils;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 @Controller
 @RequestMapping("/customers")
 public class CustomerController {
 
+    static final String CURSOR_MODE = "cursor";
+    static final String SLICE_MODE = "slice";
+
     private final CustomerService customerService;
 
     @Autowired
@@ -38,16 +73,35 @@ public class CustomerController {
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String phone,
             @RequestParam(required = false) String email,
+            @RequestParam(required = false) String mode,
+            @RequestParam(required = false) String cursor,
+            ServletWebRequest webRequest,
             Model model) {
 
-        Sort sort = sortDir.equalsIgnoreCase("desc") ?
-                Sort.by(sortBy).descending() :
-                Sort.by(sortBy).ascending();
+        if (checkPageNotModified(webRequest, customerService.getCustomerListRevision())) {
+            return null;
+        }
 
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Customer> customerPage = customerService.findCustomersWithFilters(name, phone, email, pageable);
+        boolean cursorMode = CURSOR_MODE.equals(mode);
+        if (cursorMode) {
+            // 游标模式：按上一页最后一行定位，深翻页不再产生 OFFSET 扫描
+            CursorPage<Customer> cursorPage = customerService.findCustomersByCursor(
+                    name, phone, email, sortBy, sortDir, cursor, size);
+            model.addAttribute("cursorPage", cursorPage);
+            model.addAttribute("customers", cursorPage.getContent());
+        } else {
+            Sort sort = sortDir.equalsIgnoreCase("desc") ?
+                    Sort.by(sortBy).descending() :
+                    Sort.by(sortBy).ascending();
+
+            Pageable pageable = PageRequest.of(page, size, sort);
+            Page<CustomerListItem> customerPage = customerService.findCustomerListItems(name, phone, email, pageable);
+            model.addAttribute("customerPage", customerPage);
+            model.addAttribute("customers", customerPage.getContent());
+        }
 
-        model.addAttribute("customerPage", customerPage);
+        model.addAttribute("cursorMode", cursorMode);
+        model.addAttribute("mode", cursorMode ? CURSOR_MODE : null);
         model.addAttribute("currentPage", page);
         model.addAttribute("pageSize", size);
         model.addAttribute("sortBy", sortBy);
@@ -96,7 +150,12 @@ public class CustomerController {
     }
 
     @GetMapping("/{id}")
-    public String showCustomer(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes) {
+    public String showCustomer(@PathVariable Long id, ServletWebRequest webRequest,
+                               Model model, RedirectAttributes redirectAttributes) {
+        Optional<CustomerRevision> revision = customerService.findCustomerRevision(id);
+        if (revision.isPresent() && checkPageNotModified(webRequest, revision.get())) {
+            return null;
+        }
         Optional<Customer> customer = customerService.findCustomerById(id);
         if (customer.isPresent()) {
             model.addAttribute("customer", customer.get());
@@ -160,21 +219,70 @@ public class CustomerController {
 
     @GetMapping("/search")
     public String searchCustomers(@RequestParam String query, Model model) {
-        model.addAttribute("customers", customerService.findCustomersByName(query));
+        model.addAttribute("customers", customerService.findCustomerListItemsByName(query));
         model.addAttribute("searchQuery", query);
         return "customers/search-results";
     }
+
+    /**
+     * 条件GET：声明 private, no-cache 让客户端缓存并每次重新验证；版本未变时已写入304，返回true
+     */
+    static boolean checkNotModified(ServletWebRequest webRequest, CustomerRevision revision) {
+        HttpServletResponse response = webRequest.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        }
+        return webRequest.checkNotModified(revision.getEtag(), revision.getLastModified());
+    }
+
+    /**
+     * 页面中含有当前用户和CSRF令牌，ETag按二者区分；带闪存消息的页面必须重新渲染
+     */
+    private static boolean checkPageNotModified(ServletWebRequest webRequest, CustomerRevision revision) {
+        HttpServletRequest request = webRequest.getRequest();
+        if (RequestContextUtils.getInputFlashMap(request) != null) {
+            return false;
+        }
+        CsrfToken csrfToken = (CsrfToken) request.getAttribute(CsrfToken.class.getName());
+        String viewer = request.getRemoteUser() + ":" + (csrfToken != null ? csrfToken.getToken() : "");
+        return checkNotModified(webRequest, new CustomerRevision(
+                revision.getEtag() + "-" + Integer.toHexString(viewer.hashCode()), revision.getLastModified()));
+    }
 }
 
 @RestController
 @RequestMapping("/api/customers")
 class CustomerRestController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final CustomerService customerService;
+    private final CustomerImportService customerImportService;
+    private final CustomerExportService customerExportService;
+    private final CustomerBatchService customerBatchService;
+    private final CustomerChangeFeed customerChangeFeed;
+    private final CustomerSyncService customerSyncService;
+
+    /**
+     * 导入、批量、导出和增量同步直接读写主库的客户表，分片模式下不可用
+     */
+    private final boolean sharded;
 
     @Autowired
-    public CustomerRestController(CustomerService customerService) {
+    public CustomerRestController(CustomerService customerService,
+                                  CustomerImportService customerImportService,
+                                  CustomerExportService customerExportService,
+                                  CustomerBatchService customerBatchService,
+                                  CustomerChangeFeed customerChangeFeed,
+                                  CustomerSyncService customerSyncService,
+                                  @Value("${customer.sharding.enabled:false}") boolean sharded) {
         this.customerService = customerService;
+        this.customerImportService = customerImportService;
+        this.customerExportService = customerExportService;
+        this.customerBatchService = customerBatchService;
+        this.customerChangeFeed = customerChangeFeed;
+        this.customerSyncService = customerSyncService;
+        this.sharded = sharded;
     }
 
     @GetMapping
@@ -182,7 +290,12 @@ class CustomerRestController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            ServletWebRequest webRequest) {
+
+        if (CustomerController.checkNotModified(webRequest, customerService.getCustomerListRevision())) {
+            return null;
+        }
 
         Sort sort = sortDir.equalsIgnoreCase("desc") ?
                 Sort.by(sortBy).descending() :
@@ -192,13 +305,158 @@ class CustomerRestController {
         return customerService.findCustomersWithPagination(pageable);
     }
 
+    /**
+     * 只返回是否有下一页，不做COUNT：GET /api/customers?mode=slice
+     */
+    @GetMapping(params = "mode=" + CustomerController.SLICE_MODE)
+    public Slice<Customer> getCustomerSlice(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String phone,
+            @RequestParam(required = false) String email,
+            ServletWebRequest webRequest) {
+
+        if (CustomerController.checkNotModified(webRequest, customerService.getCustomerListRevision())) {
+            return null;
+        }
+        Sort sort = sortDir.equalsIgnoreCase("desc") ?
+                Sort.by(sortBy).descending() :
+                Sort.by(sortBy).ascending();
+
+        return customerService.findCustomerSliceWithFilters(name, phone, email, PageRequest.of(page, size, sort));
+    }
+
+    /**
+     * 游标分页：GET /api/customers?mode=cursor[&cursor=...]
+     */
+    @GetMapping(params = "mode=" + CustomerController.CURSOR_MODE)
+    public CursorPage<Customer> getCustomersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String phone,
+            @RequestParam(required = false) String email,
+            ServletWebRequest webRequest) {
+        if (CustomerController.checkNotModified(webRequest, customerService.getCustomerListRevision())) {
+            return null;
+        }
+        return customerService.findCustomersByCursor(name, phone, email, sortBy, sortDir, cursor, size);
+    }
+
     @PostMapping
     public Customer createCustomer(@Valid @RequestBody Customer customer) {
         return customerService.saveCustomer(customer);
     }
 
+    /**
+     * 批量导入：请求体按流读取，不整体缓存在内存中
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ImportReport importCsv(InputStream body) throws IOException {
+        requireUnsharded();
+        return customerImportService.importCsv(body);
+    }
+
+    @PostMapping(value = "/import", consumes = NDJSON)
+    public ImportReport importNdjson(InputStream body) throws IOException {
+        requireUnsharded();
+        return customerImportService.importNdjson(body);
+    }
+
+    /**
+     * 批量新增/更新/删除：整批一个事务，逐条返回结果，单条失败不影响其他条目
+     */
+    @PostMapping("/batch")
+    public CustomerBatchResult batch(@RequestBody CustomerBatchRequest request) {
+        requireUnsharded();
+        return customerBatchService.execute(request);
+    }
+
+    /**
+     * 流式导出：GET /api/customers/export?format=csv|ndjson，过滤条件与列表页一致
+     */
+    @GetMapping("/export")
+    public void exportCustomers(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String phone,
+            @RequestParam(required = false) String email,
+            HttpServletResponse response) throws IOException {
+        requireUnsharded();
+
+        CustomerExportService.Format exportFormat;
+        if ("csv".equalsIgnoreCase(format)) {
+            exportFormat = CustomerExportService.Format.CSV;
+            response.setContentType("text/csv;charset=UTF-8");
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            exportFormat = CustomerExportService.Format.NDJSON;
+            response.setContentType(NDJSON + ";charset=UTF-8");
+        } else {
+            throw new InvalidCustomerDataException("不支持的导出格式: " + format);
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=customers." + exportFormat.name().toLowerCase(Locale.ROOT));
+
+        Sort sort = sortDir.equalsIgnoreCase("desc") ?
+                Sort.by(sortBy).descending() :
+                Sort.by(sortBy).ascending();
+
+        customerExportService.exportCustomers(name, phone, email, sort, exportFormat, response.getOutputStream());
+    }
+
+    /**
+     * 变更推送（SSE）：事件名为 created/updated/deleted/reset；断线重连时通过Last-Event-ID
+     * （或lastEventId参数）从断点续传
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventId) {
+        SseEmitter emitter = customerChangeFeed.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+    }
+
+    /**
+     * 增量同步：GET /api/customers/delta[?since=水位]，不带水位时从头全量读取；
+     * hasMore为true时用返回的水位继续请求，水位早于删除记录保留期时返回410
+     */
+    @GetMapping("/delta")
+    public CustomerDelta getDelta(@RequestParam(required = false) String since,
+                                  @RequestParam(defaultValue = "500") int limit) {
+        requireUnsharded();
+        return customerSyncService.getChangesSince(since, limit);
+    }
+
+    @GetMapping("/cache/stats")
+    public Map<String, Object> getCacheStatistics() {
+        return customerService.getCacheStatistics();
+    }
+
+    @GetMapping("/statistics")
+    public CustomerStatistics getStatistics(@RequestParam(defaultValue = "10") int ageBucket,
+                                            @RequestParam(defaultValue = "30") int days) {
+        return customerService.getCustomerStatistics(ageBucket, days);
+    }
+
+    /**
+     * 支持If-None-Match/If-Modified-Since：版本未变时只查询版本号（或命中缓存），返回304
+     */
     @GetMapping("/{id}")
-    public Customer getCustomer(@PathVariable Long id) {
+    public Customer getCustomer(@PathVariable Long id, ServletWebRequest webRequest) {
+        Optional<CustomerRevision> revision = customerService.findCustomerRevision(id);
+        if (revision.isPresent() && CustomerController.checkNotModified(webRequest, revision.get())) {
+            return null;
+        }
         return customerService.findCustomerById(id)
                 .orElseThrow(() -> new RuntimeException("客户不存在, ID: " + id));
     }
@@ -209,8 +467,22 @@ class CustomerRestController {
         return customerService.updateCustomer(customer);
     }
 
+    /**
+     * 部分更新：请求体只含要修改的字段和读取时的version，版本不一致返回409
+     */
+    @PatchMapping("/{id}")
+    public Customer patchCustomer(@PathVariable Long id, @RequestBody CustomerPatch patch) {
+        return customerService.patchCustomer(id, patch);
+    }
+
     @DeleteMapping("/{id}")
     public void deleteCustomer(@PathVariable Long id) {
         customerService.deleteCustomer(id);
     }
+
+    private void requireUnsharded() {
+        if (sharded) {
+            throw new ShardingUnsupportedException();
+        }
+    }
 }
\ No newline at end of file
@@ -1,13 +1,34 @@
 package com.example.customer.controller;
 
+import com.example.customer.config.PasswordVerificationExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Map;
 
 @Controller
 public class LoginController {
 
+    private final PasswordVerificationExecutor passwordVerifier;
+
+    @Autowired
+    public LoginController(PasswordVerificationExecutor passwordVerifier) {
+        this.passwordVerifier = passwordVerifier;
+    }
+
     @GetMapping("/login")
     public String showLoginForm() {
         return "login";
     }
-}
\ No newline at end of file
+
+    /**
+     * 密码校验线程池的运行指标（队列深度、拒绝次数、校验耗时）
+     */
+    @GetMapping("/api/login/stats")
+    @ResponseBody
+    public Map<String, Object> getLoginStats() {
+        return passwordVerifier.stats();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.customer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 游标分页结果 - 不做COUNT查询，只返回下一页的续传令牌
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private final List<T> content;
+
+    private final int size;
+
+    private final boolean hasNext;
+
+    /**
+     * 下一页的续传令牌，没有下一页时为null
+     */
+    private final String nextCursor;
+
+    private final String sortBy;
+
+    private final String sortDir;
+
+    public int getNumberOfElements() {
+        return content.size();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.customer.dto;
+
+import com.example.customer.entity.Customer;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量写请求：新增、更新（整条替换，需带ID，带version时按乐观锁校验）和删除（客户ID）
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class CustomerBatchRequest {
+
+    private List<Customer> create = new ArrayList<>();
+
+    private List<Customer> update = new ArrayList<>();
+
+    private List<Long> delete = new ArrayList<>();
+}
@@ -0,0 +1,69 @@
+package com.example.customer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量写结果，逐条给出处理状态；单条失败不影响同批其他条目
+ */
+@Getter
+public class CustomerBatchResult {
+
+    public enum Operation {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    private long succeeded;
+
+    private long failed;
+
+    private long elapsedMillis;
+
+    /**
+     * 按新增、更新、删除的顺序排列，每组内与请求中的顺序一致
+     */
+    private final List<ItemResult> results = new ArrayList<>();
+
+    public void add(ItemResult item) {
+        results.add(item);
+        if (item.isSuccess()) {
+            succeeded++;
+        } else {
+            failed++;
+        }
+    }
+
+    public void finish(long startMillis) {
+        this.elapsedMillis = System.currentTimeMillis() - startMillis;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ItemResult {
+
+        private final Operation operation;
+
+        /**
+         * 条目在请求对应数组中的下标（从0开始）
+         */
+        private final int index;
+
+        private final Long id;
+
+        /**
+         * 与单条接口一致的HTTP状态码：201/200/204成功，400/404/409失败
+         */
+        private final int status;
+
+        private final String message;
+
+        public boolean isSuccess() {
+            return status < 400;
+        }
+    }
+}
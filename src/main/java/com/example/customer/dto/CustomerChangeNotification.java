@@ -0,0 +1,26 @@
+package com.example.customer.dto;
+
+import com.example.customer.entity.Customer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 变更推送的事件内容；删除事件只带客户ID
+ */
+@Getter
+@AllArgsConstructor
+public class CustomerChangeNotification {
+
+    /**
+     * created / updated / deleted
+     */
+    private final String type;
+
+    private final Long customerId;
+
+    private final Customer customer;
+
+    private final LocalDateTime occurredAt;
+}
@@ -0,0 +1,111 @@
+package com.example.customer.dto;
+
+import com.example.customer.entity.Customer;
+import com.example.customer.exception.InvalidCustomerDataException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 客户列表的键集分页游标
+ * 编码上一页最后一行的排序键和ID（ID作为排序键相同时的决胜字段），对客户端不透明
+ */
+@Getter
+@AllArgsConstructor
+public class CustomerCursor {
+
+    private static final String SEPARATOR = "\u0001";
+
+    private final SortKey sortKey;
+
+    private final boolean descending;
+
+    private final Long lastId;
+
+    private final String lastName;
+
+    private final LocalDateTime lastCreatedTime;
+
+    /**
+     * 支持键集分页的排序字段
+     */
+    public enum SortKey {
+        ID("id"),
+        NAME("name"),
+        CREATED_TIME("createdTime");
+
+        private final String property;
+
+        SortKey(String property) {
+            this.property = property;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public static SortKey of(String sortBy) {
+            if (sortBy == null || sortBy.trim().isEmpty()) {
+                return ID;
+            }
+            String value = sortBy.trim();
+            for (SortKey key : values()) {
+                if (key.property.equalsIgnoreCase(value) || key.name().equalsIgnoreCase(value)) {
+                    return key;
+                }
+            }
+            throw new InvalidCustomerDataException("游标分页不支持的排序字段: " + sortBy);
+        }
+    }
+
+    /**
+     * 根据当前页最后一行生成下一页游标
+     */
+    public static CustomerCursor after(Customer last, SortKey sortKey, boolean descending) {
+        return new CustomerCursor(sortKey, descending, last.getId(), last.getName(), last.getCreatedTime());
+    }
+
+    public String encode() {
+        String value;
+        switch (sortKey) {
+            case NAME:
+                value = lastName;
+                break;
+            case CREATED_TIME:
+                value = lastCreatedTime.toString();
+                break;
+            default:
+                value = "";
+        }
+        String raw = sortKey.name() + SEPARATOR + (descending ? "D" : "A") + SEPARATOR + lastId + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，并校验游标与本次请求的排序方式一致
+     */
+    public static CustomerCursor decode(String token, SortKey expectedKey, boolean expectedDescending) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new InvalidCustomerDataException("无效的分页游标");
+            }
+            SortKey sortKey = SortKey.valueOf(parts[0]);
+            boolean descending = "D".equals(parts[1]);
+            if (sortKey != expectedKey || descending != expectedDescending) {
+                throw new InvalidCustomerDataException("分页游标与排序方式不匹配");
+            }
+            Long lastId = Long.valueOf(parts[2]);
+            String lastName = sortKey == SortKey.NAME ? parts[3] : null;
+            LocalDateTime lastCreatedTime = sortKey == SortKey.CREATED_TIME ? LocalDateTime.parse(parts[3]) : null;
+            return new CustomerCursor(sortKey, descending, lastId, lastName, lastCreatedTime);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCustomerDataException("无效的分页游标", e);
+        }
+    }
+}
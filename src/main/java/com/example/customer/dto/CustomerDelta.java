@@ -0,0 +1,33 @@
+package com.example.customer.dto;
+
+import com.example.customer.entity.Customer;
+import com.example.customer.entity.CustomerTombstone;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 增量同步结果：水位之后新增或修改的客户、被删除的客户，以及下一次请求使用的水位
+ */
+@Getter
+@AllArgsConstructor
+public class CustomerDelta {
+
+    /**
+     * 按 (updatedTime, id) 升序
+     */
+    private final List<Customer> changed;
+
+    /**
+     * 按 (deletedTime, id) 升序
+     */
+    private final List<CustomerTombstone> deleted;
+
+    private final String watermark;
+
+    /**
+     * 为true时本次未取完，应立即用新水位继续请求
+     */
+    private final boolean hasMore;
+}
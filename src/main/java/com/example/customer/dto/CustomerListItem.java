@@ -0,0 +1,31 @@
+package com.example.customer.dto;
+
+import com.example.customer.entity.Gender;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 客户列表行 - 构造器投影，只查询列表展示的列，不进入持久化上下文
+ */
+@Getter
+@AllArgsConstructor
+public class CustomerListItem {
+
+    private final Long id;
+
+    private final String name;
+
+    private final String phone;
+
+    private final String email;
+
+    private final Integer age;
+
+    private final Gender gender;
+
+    private final String address;
+
+    private final LocalDateTime createdTime;
+}
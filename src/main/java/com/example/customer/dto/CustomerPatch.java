@@ -0,0 +1,100 @@
+package com.example.customer.dto;
+
+import com.example.customer.entity.Customer;
+import com.example.customer.entity.Gender;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 客户部分更新：只修改请求体中出现的字段，显式传null表示清空该字段；
+ * version为客户端读取时的版本号，与当前版本不一致时拒绝更新
+ */
+@Getter
+public class CustomerPatch {
+
+    private String name;
+
+    private String phone;
+
+    private String email;
+
+    private String address;
+
+    private Integer age;
+
+    private Gender gender;
+
+    private Long version;
+
+    /**
+     * Jackson只对请求体中出现的属性调用setter，据此区分“未提供”和“置为null”
+     */
+    @JsonIgnore
+    private final Set<String> present = new HashSet<>();
+
+    public void setName(String name) {
+        this.name = name;
+        present.add("name");
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+        present.add("phone");
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+        present.add("email");
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+        present.add("address");
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+        present.add("age");
+    }
+
+    public void setGender(Gender gender) {
+        this.gender = gender;
+        present.add("gender");
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Set<String> getPresent() {
+        return Collections.unmodifiableSet(present);
+    }
+
+    /**
+     * 把出现的字段写入客户对象
+     */
+    public void applyTo(Customer customer) {
+        if (present.contains("name")) {
+            customer.setName(name);
+        }
+        if (present.contains("phone")) {
+            customer.setPhone(phone);
+        }
+        if (present.contains("email")) {
+            customer.setEmail(email);
+        }
+        if (present.contains("address")) {
+            customer.setAddress(address);
+        }
+        if (present.contains("age")) {
+            customer.setAge(age);
+        }
+        if (present.contains("gender")) {
+            customer.setGender(gender);
+        }
+    }
+}
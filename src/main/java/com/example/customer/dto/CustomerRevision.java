@@ -0,0 +1,30 @@
+package com.example.customer.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 条件请求用的资源版本：ETag值（不含引号）和最后修改时间（毫秒，未知时为-1）
+ */
+@Getter
+public class CustomerRevision {
+
+    private final String etag;
+
+    private final long lastModified;
+
+    public CustomerRevision(String etag, long lastModified) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * 单个客户的版本，由ID和乐观锁版本号构成；JPQL构造器投影也使用该构造器
+     */
+    public CustomerRevision(Long id, Long version, LocalDateTime updatedTime) {
+        this("c" + id + "-v" + version,
+                updatedTime != null ? updatedTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1L);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.customer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 客户统计：性别分布、年龄直方图、每日新增
+ */
+@Getter
+@AllArgsConstructor
+public class CustomerStatistics {
+
+    private final long total;
+
+    /**
+     * 各性别的客户数，未填写性别的计入 UNKNOWN
+     */
+    private final Map<String, Long> byGender;
+
+    private final List<AgeBucket> ageHistogram;
+
+    /**
+     * 未填写年龄的客户数
+     */
+    private final long unknownAge;
+
+    /**
+     * 最近若干天每天新增（且未删除）的客户数，按日期升序
+     */
+    private final List<DailyCount> dailyCreated;
+
+    /**
+     * 最近一次与数据库校准的时间
+     */
+    private final LocalDateTime reconciledAt;
+
+    @Getter
+    @AllArgsConstructor
+    public static class AgeBucket {
+
+        /**
+         * 区间下限（含）
+         */
+        private final int from;
+
+        /**
+         * 区间上限（含）
+         */
+        private final int to;
+
+        private final long count;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class DailyCount {
+
+        private final LocalDate date;
+
+        private final long count;
+    }
+}
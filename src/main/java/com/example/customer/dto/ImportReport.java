@@ -0,0 +1,72 @@
+package com.example.customer.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量导入结果，逐行记录失败原因
+ */
+@Getter
+public class ImportReport {
+
+    private long totalRows;
+
+    private long imported;
+
+    private long failed;
+
+    private final List<RowError> errors = new ArrayList<>();
+
+    /**
+     * 失败行数超过上限时只保留前面的明细
+     */
+    private boolean errorsTruncated;
+
+    private long elapsedMillis;
+
+    @Getter(AccessLevel.NONE)
+    private final int maxReportedErrors;
+
+    public ImportReport(int maxReportedErrors) {
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public void rowRead() {
+        totalRows++;
+    }
+
+    public void imported(int count) {
+        imported += count;
+    }
+
+    public void rejected(long line, String phone, String message) {
+        failed++;
+        if (errors.size() < maxReportedErrors) {
+            errors.add(new RowError(line, phone, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    public void finish(long startMillis) {
+        this.elapsedMillis = System.currentTimeMillis() - startMillis;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class RowError {
+
+        /**
+         * 源文件中的行号（从1开始，CSV表头为第1行）
+         */
+        private final long line;
+
+        private final String phone;
+
+        private final String message;
+    }
+}
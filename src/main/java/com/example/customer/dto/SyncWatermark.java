@@ -0,0 +1,63 @@
+package com.example.customer.dto;
+
+import com.example.customer.exception.InvalidCustomerDataException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 增量同步水位
+ * 分别记录客户变更流 (updated_time, id) 与删除记录流 (deleted_time, id) 已读到的位置，对客户端不透明
+ */
+@Getter
+@AllArgsConstructor
+public class SyncWatermark {
+
+    private static final String VERSION = "1";
+
+    private static final String SEPARATOR = "\u0001";
+
+    /**
+     * 首次全量同步的客户起点
+     */
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final LocalDateTime changedTime;
+
+    private final long changedId;
+
+    private final LocalDateTime deletedTime;
+
+    private final long deletedId;
+
+    /**
+     * 首次同步：读取全部客户；删除记录从本次同步开始时计，之前的删除与全量数据无关
+     */
+    public static SyncWatermark initial(LocalDateTime deletionsFrom) {
+        return new SyncWatermark(BEGINNING, 0L, deletionsFrom, 0L);
+    }
+
+    public String encode() {
+        String raw = VERSION + SEPARATOR + changedTime + SEPARATOR + changedId
+                + SEPARATOR + deletedTime + SEPARATOR + deletedId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SyncWatermark decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 5);
+            if (parts.length != 5 || !VERSION.equals(parts[0])) {
+                throw new InvalidCustomerDataException("无效的同步水位");
+            }
+            return new SyncWatermark(LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]),
+                    LocalDateTime.parse(parts[3]), Long.parseLong(parts[4]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCustomerDataException("无效的同步水位", e);
+        }
+    }
+}
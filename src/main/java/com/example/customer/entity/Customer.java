@@ -1,23 +1,54 @@
 package com.example.customer.entity;
 
+import com.example.customer.config.ConcurrentPooledLoOptimizer;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "customers")
+@Table(name = "customers",
+       uniqueConstraints = @UniqueConstraint(name = Customer.PHONE_CONSTRAINT, columnNames = "phone"),
+       indexes = @Index(name = "idx_updated_time_id", columnList = "updated_time, id"))
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Customer.CACHE_REGION)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @ToString(exclude = {"createdTime", "updatedTime"})
 public class Customer {
 
+    /**
+     * Hibernate二级缓存区域
+     */
+    public static final String CACHE_REGION = "customer";
+
+    /**
+     * 手机号唯一约束名，写入冲突时据此区分手机号重复与其他完整性错误
+     */
+    public static final String PHONE_CONSTRAINT = "uk_customers_phone";
+
+    /**
+     * 号段分配（见 ConcurrentPooledLoOptimizer），插入前即可得到ID，JDBC批量插入才能生效
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "customer_id")
+    @GenericGenerator(name = "customer_id", strategy = "enhanced-table", parameters = {
+            @Parameter(name = "table_name", value = ConcurrentPooledLoOptimizer.TABLE_NAME),
+            @Parameter(name = "segment_value", value = "customers"),
+            @Parameter(name = "increment_size", value = ConcurrentPooledLoOptimizer.INCREMENT_SIZE),
+            @Parameter(name = "optimizer", value = ConcurrentPooledLoOptimizer.CLASS_NAME)
+    })
     private Long id;
 
     @NotBlank(message = "姓名不能为空")
@@ -27,7 +58,7 @@ public class Customer {
 
     @NotBlank(message = "手机号不能为空")
     @Pattern(regexp = "^1[3-9]\\d{9}$", message = "手机号格式不正确")
-    @Column(name = "phone", nullable = false, length = 11, unique = true)
+    @Column(name = "phone", nullable = false, length = 11)
     private String phone;
 
     @Email(message = "邮箱格式不正确")
@@ -53,6 +84,15 @@ public class Customer {
     @Column(name = "updated_time")
     private LocalDateTime updatedTime;
 
+    /**
+     * 乐观锁版本号，每次更新加一；UPDATE语句以 id + version 为条件，版本不符时视为并发修改。
+     * 列默认值为0，JDBC批量插入不必显式写入
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         this.createdTime = LocalDateTime.now();
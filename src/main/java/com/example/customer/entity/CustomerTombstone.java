@@ -0,0 +1,33 @@
+package com.example.customer.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 客户删除记录，供增量同步的下游应用删除；超过保留期后定期清理
+ */
+@Entity
+@Table(name = "customer_tombstones",
+       indexes = @Index(name = "idx_tombstone_deleted_time_id", columnList = "deleted_time, id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "phone", length = 11)
+    private String phone;
+
+    @Column(name = "deleted_time", nullable = false)
+    private LocalDateTime deletedTime;
+}
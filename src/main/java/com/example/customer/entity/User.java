@@ -1,6 +1,11 @@
 package com.example.customer.entity;
 
+import com.example.customer.config.ConcurrentPooledLoOptimizer;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -11,6 +16,8 @@ import java.util.Set;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,8 +26,23 @@ import java.util.Set;
 @ToString(exclude = "password")
 public class User {
 
+    /**
+     * Hibernate二级缓存区域：用户实体、角色集合
+     */
+    public static final String CACHE_REGION = "user";
+    public static final String ROLES_CACHE_REGION = "user-roles";
+
+    /**
+     * 与 Customer.id 相同，按号段分配
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_id")
+    @GenericGenerator(name = "user_id", strategy = "enhanced-table", parameters = {
+            @Parameter(name = "table_name", value = ConcurrentPooledLoOptimizer.TABLE_NAME),
+            @Parameter(name = "segment_value", value = "users"),
+            @Parameter(name = "increment_size", value = ConcurrentPooledLoOptimizer.INCREMENT_SIZE),
+            @Parameter(name = "optimizer", value = ConcurrentPooledLoOptimizer.CLASS_NAME)
+    })
     private Long id;
 
     @NotBlank(message = "用户名不能为空")
@@ -40,6 +62,7 @@ public class User {
     private LocalDateTime updatedTime;
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.ROLES_CACHE_REGION)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     @Enumerated(EnumType.STRING)
     @Column(name = "role")
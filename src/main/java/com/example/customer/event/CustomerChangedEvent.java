@@ -0,0 +1,49 @@
+package com.example.customer.event;
+
+import com.example.customer.entity.Customer;
+import lombok.Getter;
+
+/**
+ * 客户数据变更事件
+ * 由CustomerServiceImpl在写操作中发布，监听方通过@TransactionalEventListener在事务提交后处理，
+ * 用于维护内存中的计数、索引等派生数据
+ */
+@Getter
+public class CustomerChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+
+    /**
+     * 变更后的客户；删除事件中为被删除的客户
+     */
+    private final Customer customer;
+
+    /**
+     * 变更前的客户快照，仅更新事件有值
+     */
+    private final Customer previous;
+
+    private CustomerChangedEvent(Type type, Customer customer, Customer previous) {
+        this.type = type;
+        this.customer = customer;
+        this.previous = previous;
+    }
+
+    public static CustomerChangedEvent created(Customer customer) {
+        return new CustomerChangedEvent(Type.CREATED, customer, null);
+    }
+
+    public static CustomerChangedEvent updated(Customer previous, Customer customer) {
+        return new CustomerChangedEvent(Type.UPDATED, customer, previous);
+    }
+
+    public static CustomerChangedEvent deleted(Customer customer) {
+        return new CustomerChangedEvent(Type.DELETED, customer, null);
+    }
+}
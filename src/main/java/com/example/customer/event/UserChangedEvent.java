@@ -0,0 +1,20 @@
+package com.example.customer.event;
+
+import lombok.Getter;
+
+/**
+ * 系统用户变更事件
+ * 由UserServiceImpl在保存用户后发布，用于失效认证缓存
+ */
+@Getter
+public class UserChangedEvent {
+
+    private final Long userId;
+
+    private final String username;
+
+    public UserChangedEvent(Long userId, String username) {
+        this.userId = userId;
+        this.username = username;
+    }
+}
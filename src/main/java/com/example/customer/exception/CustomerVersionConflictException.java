@@ -0,0 +1,12 @@
+package com.example.customer.exception;
+
+public class CustomerVersionConflictException extends RuntimeException {
+
+    public CustomerVersionConflictException(Long id) {
+        super("客户已被其他人修改，请刷新后重试, ID: " + id);
+    }
+
+    public CustomerVersionConflictException(Long id, Throwable cause) {
+        super("客户已被其他人修改，请刷新后重试, ID: " + id, cause);
+    }
+}
@@ -13,6 +13,8 @@ import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import javax.servlet.http.HttpServletRequest;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -70,6 +72,61 @@ public class GlobalExceptionHandler {
         return new ModelAndView("redirect:/customers");
     }
 
+    /**
+     * 处理乐观锁版本冲突 - 同时支持Web和API请求
+     */
+    @ExceptionHandler(CustomerVersionConflictException.class)
+    public Object handleVersionConflictException(CustomerVersionConflictException ex,
+                                                 HttpServletRequest request,
+                                                 RedirectAttributes redirectAttributes) {
+        logger.warn("Customer version conflict: {}", ex.getMessage());
+
+        if (isApiRequest(request)) {
+            ErrorResponse errorResponse = new ErrorResponse(
+                    HttpStatus.CONFLICT.value(),
+                    ex.getMessage(),
+                    request.getRequestURI(),
+                    LocalDateTime.now()
+            );
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        }
+
+        redirectAttributes.addFlashAttribute("errorMessage", ex.getMessage());
+        return new ModelAndView("redirect:/customers");
+    }
+
+    /**
+     * 处理过期的增量同步水位 - 仅API使用，返回410提示客户端重新全量同步
+     */
+    @ExceptionHandler(SyncWatermarkExpiredException.class)
+    public ResponseEntity<ErrorResponse> handleSyncWatermarkExpiredException(SyncWatermarkExpiredException ex,
+                                                                             HttpServletRequest request) {
+        logger.warn("Expired sync watermark: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.GONE.value(),
+                ex.getMessage(),
+                request.getRequestURI(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.GONE).body(errorResponse);
+    }
+
+    /**
+     * 处理分片模式下不可用的接口 - 仅API使用，返回501
+     */
+    @ExceptionHandler(ShardingUnsupportedException.class)
+    public ResponseEntity<ErrorResponse> handleShardingUnsupportedException(ShardingUnsupportedException ex,
+                                                                            HttpServletRequest request) {
+        logger.warn("Unsupported in sharded mode: {}", request.getRequestURI());
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.NOT_IMPLEMENTED.value(),
+                ex.getMessage(),
+                request.getRequestURI(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).body(errorResponse);
+    }
+
     /**
      * 处理无效数据异常 - 同时支持Web和API请求
      */
@@ -131,9 +188,27 @@ public class GlobalExceptionHandler {
 
     /**
      * 处理通用异常 - 同时支持Web和API请求
+     * 连接池取连接超时、查询超时说明数据库已过载，返回503，并发限制据此收缩上限
      */
     @ExceptionHandler(Exception.class)
     public Object handleGlobalException(Exception ex, HttpServletRequest request) {
+        if (isOverload(ex)) {
+            logger.warn("Request failed under database overload: {} {}", request.getRequestURI(), ex.getMessage());
+            if (isApiRequest(request)) {
+                ErrorResponse errorResponse = new ErrorResponse(
+                        HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        "服务繁忙，请稍后重试",
+                        request.getRequestURI(),
+                        LocalDateTime.now()
+                );
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+            }
+            ModelAndView mav = new ModelAndView("error/error");
+            mav.setStatus(HttpStatus.SERVICE_UNAVAILABLE);
+            mav.addObject("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+            mav.addObject("message", "服务繁忙，请稍后重试");
+            return mav;
+        }
         logger.error("Unexpected error occurred: ", ex);
 
         if (isApiRequest(request)) {
@@ -153,6 +228,20 @@ public class GlobalExceptionHandler {
         return mav;
     }
 
+    /**
+     * 异常链中是否有连接池取连接超时（Hikari抛出SQLTransientConnectionException）或查询超时
+     */
+    public static boolean isOverload(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException || cause instanceof SQLTimeoutException
+                    || cause instanceof org.springframework.dao.QueryTimeoutException
+                    || cause instanceof javax.persistence.QueryTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * 判断是否为API请求
      */
@@ -0,0 +1,13 @@
+package com.example.customer.exception;
+
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * 密码校验线程池饱和或同一用户/IP并发登录超限时抛出，登录失败处理器将其转换为429
+ */
+public class LoginThrottledException extends AuthenticationException {
+
+    public LoginThrottledException(String message) {
+        super(message);
+    }
+}
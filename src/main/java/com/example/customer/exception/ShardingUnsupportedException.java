@@ -0,0 +1,8 @@
+package com.example.customer.exception;
+
+public class ShardingUnsupportedException extends RuntimeException {
+
+    public ShardingUnsupportedException() {
+        super("分片模式下暂不支持该操作");
+    }
+}
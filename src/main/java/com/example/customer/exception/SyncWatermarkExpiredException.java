@@ -0,0 +1,8 @@
+package com.example.customer.exception;
+
+public class SyncWatermarkExpiredException extends RuntimeException {
+
+    public SyncWatermarkExpiredException() {
+        super("同步水位早于删除记录的保留期，请不带水位重新全量同步");
+    }
+}
@@ -1,33 +1,260 @@
 package com.example.customer.repository;
 
+import com.example.customer.dto.CustomerListItem;
+import com.example.customer.dto.CustomerRevision;
 import com.example.customer.entity.Customer;
 import com.example.customer.entity.Gender;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
+    /**
+     * 姓名/手机号/邮箱过滤条件，列表查询和键集分页查询共用
+     */
+    String FILTER_CONDITION =
+            "(:name IS NULL OR LOWER(c.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
+            "(:phone IS NULL OR c.phone LIKE CONCAT('%', :phone, '%')) AND " +
+            "(:email IS NULL OR LOWER(c.email) LIKE LOWER(CONCAT('%', :email, '%')))";
+
+    /**
+     * 列表页投影：只取展示用的列，结果不是托管实体，不会生成脏检查快照
+     */
+    String LIST_ITEM_SELECT =
+            "SELECT new com.example.customer.dto.CustomerListItem(" +
+            "c.id, c.name, c.phone, c.email, c.age, c.gender, c.address, c.createdTime) FROM Customer c";
+
+    /**
+     * 查询缓存区域：customers表有写入时Hibernate自动失效，JDBC批量写入后需手动失效
+     */
+    String QUERY_CACHE_REGION = "customer-queries";
+
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
     Optional<Customer> findByPhone(String phone);
 
     List<Customer> findByNameContainingIgnoreCase(String name);
 
-    @Query("SELECT c FROM Customer c WHERE " +
-           "(:name IS NULL OR LOWER(c.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
-           "(:phone IS NULL OR c.phone LIKE CONCAT('%', :phone, '%')) AND " +
-           "(:email IS NULL OR LOWER(c.email) LIKE LOWER(CONCAT('%', :email, '%')))")
+    /**
+     * 写操作前的加载：二级缓存是进程内的，其他实例的更新不会使本进程的条目失效，
+     * 版本号校验必须读数据库，并用读到的数据刷新本进程的缓存条目
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_MODE, value = "REFRESH"))
+    @Query("SELECT c FROM Customer c WHERE c.id = :id")
+    Optional<Customer> findCurrentById(@Param("id") Long id);
+
+    /**
+     * 条件请求用：只取版本号和修改时间，不加载实体
+     */
+    @Query("SELECT new com.example.customer.dto.CustomerRevision(c.id, c.version, c.updatedTime) " +
+           "FROM Customer c WHERE c.id = :id")
+    Optional<CustomerRevision> findRevisionById(@Param("id") Long id);
+
+    /**
+     * 列表ETag用的变更标记：行数、版本号之和、ID之和、最近修改时间。
+     * 每次更新版本号加一，新增占用未用过的ID，删除减少行数，同一秒内的多次写入也会改变标记
+     */
+    @Query("SELECT COUNT(c), SUM(c.version), SUM(c.id), MAX(c.updatedTime) FROM Customer c")
+    List<Object[]> findChangeMarker();
+
+    /**
+     * 批量查重：一次查询返回给定手机号中已存在的部分
+     */
+    @Query("SELECT c.phone FROM Customer c WHERE c.phone IN :phones")
+    List<String> findExistingPhones(@Param("phones") Collection<String> phones);
+
+    /**
+     * 按手机号取回ID（标量查询，不加载实体），用于批量操作的手机号查重
+     */
+    @Query("SELECT c.phone, c.id FROM Customer c WHERE c.phone IN :phones")
+    List<Object[]> findIdsByPhones(@Param("phones") Collection<String> phones);
+
+    @Query("SELECT c FROM Customer c WHERE " + FILTER_CONDITION)
     Page<Customer> findCustomersWithFilters(@Param("name") String name,
                                           @Param("phone") String phone,
                                           @Param("email") String email,
                                           Pageable pageable);
 
+    /**
+     * 与findCustomersWithFilters相同的过滤条件，但返回Slice，不附带COUNT查询
+     */
+    @Query("SELECT c FROM Customer c WHERE " + FILTER_CONDITION)
+    Slice<Customer> findCustomerSliceWithFilters(@Param("name") String name,
+                                                 @Param("phone") String phone,
+                                                 @Param("email") String email,
+                                                 Pageable pageable);
+
+    /**
+     * 在n-gram索引给出的候选ID中按过滤条件复核，走主键查找而非全表LIKE扫描
+     */
+    @Query("SELECT c FROM Customer c WHERE c.id IN :ids AND " + FILTER_CONDITION)
+    Page<Customer> findCustomersWithFiltersAmongIds(@Param("ids") Collection<Long> ids,
+                                                    @Param("name") String name,
+                                                    @Param("phone") String phone,
+                                                    @Param("email") String email,
+                                                    Pageable pageable);
+
+    @Query("SELECT c FROM Customer c WHERE c.id IN :ids AND " + FILTER_CONDITION)
+    Slice<Customer> findCustomerSliceWithFiltersAmongIds(@Param("ids") Collection<Long> ids,
+                                                         @Param("name") String name,
+                                                         @Param("phone") String phone,
+                                                         @Param("email") String email,
+                                                         Pageable pageable);
+
+    /*
+     * 列表页投影查询，过滤条件与上面的实体查询一致；构造器表达式无法推导COUNT，需显式给出countQuery
+     */
+
+    @Query(value = LIST_ITEM_SELECT + " WHERE " + FILTER_CONDITION,
+           countQuery = "SELECT COUNT(c) FROM Customer c WHERE " + FILTER_CONDITION)
+    Page<CustomerListItem> findListItemsWithFilters(@Param("name") String name,
+                                                    @Param("phone") String phone,
+                                                    @Param("email") String email,
+                                                    Pageable pageable);
+
+    @Query(LIST_ITEM_SELECT + " WHERE " + FILTER_CONDITION)
+    Slice<CustomerListItem> findListItemSliceWithFilters(@Param("name") String name,
+                                                         @Param("phone") String phone,
+                                                         @Param("email") String email,
+                                                         Pageable pageable);
+
+    @Query(value = LIST_ITEM_SELECT + " WHERE c.id IN :ids AND " + FILTER_CONDITION,
+           countQuery = "SELECT COUNT(c) FROM Customer c WHERE c.id IN :ids AND " + FILTER_CONDITION)
+    Page<CustomerListItem> findListItemsWithFiltersAmongIds(@Param("ids") Collection<Long> ids,
+                                                            @Param("name") String name,
+                                                            @Param("phone") String phone,
+                                                            @Param("email") String email,
+                                                            Pageable pageable);
+
+    /**
+     * 增量同步：按 (updated_time, id) 从水位之后向前读取（走idx_updated_time_id），until之后的变更留待下一次同步
+     */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("SELECT c FROM Customer c WHERE " +
+           "(c.updatedTime > :since OR (c.updatedTime = :since AND c.id > :lastId)) AND c.updatedTime <= :until " +
+           "ORDER BY c.updatedTime ASC, c.id ASC")
+    List<Customer> findChangedSince(@Param("since") LocalDateTime since,
+                                    @Param("lastId") long lastId,
+                                    @Param("until") LocalDateTime until,
+                                    Pageable limit);
+
+    /**
+     * 按ID分批读取n-gram索引所需的字段，不加载实体
+     */
+    @Query("SELECT c.id, c.name, c.phone, c.email FROM Customer c WHERE c.id > :lastId ORDER BY c.id ASC")
+    List<Object[]> findSearchFieldsAfter(@Param("lastId") long lastId, Pageable limit);
+
+    /**
+     * 按 (updated_time, id) 从水位之后读取n-gram索引所需的字段（走idx_updated_time_id），用于同步其他实例的写入
+     */
+    @Query("SELECT c.id, c.name, c.phone, c.email, c.updatedTime FROM Customer c WHERE " +
+           "c.updatedTime > :since OR (c.updatedTime = :since AND c.id > :lastId) " +
+           "ORDER BY c.updatedTime ASC, c.id ASC")
+    List<Object[]> findSearchFieldsChangedSince(@Param("since") LocalDateTime since,
+                                                @Param("lastId") long lastId,
+                                                Pageable limit);
+
+    /*
+     * 统计校准用的分组计数
+     */
+    @Query("SELECT c.gender, COUNT(c) FROM Customer c GROUP BY c.gender")
+    List<Object[]> countGroupByGender();
+
+    @Query("SELECT c.age, COUNT(c) FROM Customer c GROUP BY c.age")
+    List<Object[]> countGroupByAge();
+
+    @Query("SELECT CAST(c.createdTime AS date), COUNT(c) FROM Customer c " +
+           "WHERE c.createdTime >= :since GROUP BY CAST(c.createdTime AS date)")
+    List<Object[]> countCreatedPerDaySince(@Param("since") LocalDateTime since);
+
+    /**
+     * 按ID分批读取手机号，用于构建手机号内存集合
+     */
+    @Query("SELECT c.id, c.phone FROM Customer c WHERE c.id > :lastId ORDER BY c.id ASC")
+    List<Object[]> findPhonesAfter(@Param("lastId") long lastId, Pageable limit);
+
+    /*
+     * 键集（游标）分页查询：以上一页最后一行的排序键+ID为起点向后定位，
+     * 不使用OFFSET，深翻页耗时与页码无关。lastId为null时表示第一页。
+     * pageable只用于限制返回行数，排序固定写在ORDER BY中。
+     */
+
+    @Query("SELECT c FROM Customer c WHERE " + FILTER_CONDITION +
+           " AND (:lastId IS NULL OR c.id > :lastId) ORDER BY c.id ASC")
+    List<Customer> seekByIdAsc(@Param("name") String name,
+                               @Param("phone") String phone,
+                               @Param("email") String email,
+                               @Param("lastId") Long lastId,
+                               Pageable limit);
+
+    @Query("SELECT c FROM Customer c WHERE " + FILTER_CONDITION +
+           " AND (:lastId IS NULL OR c.id < :lastId) ORDER BY c.id DESC")
+    List<Customer> seekByIdDesc(@Param("name") String name,
+                                @Param("phone") String phone,
+                                @Param("email") String email,
+                                @Param("lastId") Long lastId,
+                                Pageable limit);
+
+    @Query("SELECT c FROM Customer c WHERE " + FILTER_CONDITION +
+           " AND (:lastId IS NULL OR c.name > :lastName OR (c.name = :lastName AND c.id > :lastId))" +
+           " ORDER BY c.name ASC, c.id ASC")
+    List<Customer> seekByNameAsc(@Param("name") String name,
+                                 @Param("phone") String phone,
+                                 @Param("email") String email,
+                                 @Param("lastName") String lastName,
+                                 @Param("lastId") Long lastId,
+                                 Pageable limit);
+
+    @Query("SELECT c FROM Customer c WHERE " + FILTER_CONDITION +
+           " AND (:lastId IS NULL OR c.name < :lastName OR (c.name = :lastName AND c.id < :lastId))" +
+           " ORDER BY c.name DESC, c.id DESC")
+    List<Customer> seekByNameDesc(@Param("name") String name,
+                                  @Param("phone") String phone,
+                                  @Param("email") String email,
+                                  @Param("lastName") String lastName,
+                                  @Param("lastId") Long lastId,
+                                  Pageable limit);
+
+    @Query("SELECT c FROM Customer c WHERE " + FILTER_CONDITION +
+           " AND (:lastId IS NULL OR c.createdTime > :lastCreatedTime" +
+           " OR (c.createdTime = :lastCreatedTime AND c.id > :lastId))" +
+           " ORDER BY c.createdTime ASC, c.id ASC")
+    List<Customer> seekByCreatedTimeAsc(@Param("name") String name,
+                                        @Param("phone") String phone,
+                                        @Param("email") String email,
+                                        @Param("lastCreatedTime") LocalDateTime lastCreatedTime,
+                                        @Param("lastId") Long lastId,
+                                        Pageable limit);
+
+    @Query("SELECT c FROM Customer c WHERE " + FILTER_CONDITION +
+           " AND (:lastId IS NULL OR c.createdTime < :lastCreatedTime" +
+           " OR (c.createdTime = :lastCreatedTime AND c.id < :lastId))" +
+           " ORDER BY c.createdTime DESC, c.id DESC")
+    List<Customer> seekByCreatedTimeDesc(@Param("name") String name,
+                                         @Param("phone") String phone,
+                                         @Param("email") String email,
+                                         @Param("lastCreatedTime") LocalDateTime lastCreatedTime,
+                                         @Param("lastId") Long lastId,
+                                         Pageable limit);
+
     @Query("SELECT COUNT(c) FROM Customer c WHERE c.phone = :phone AND (:id IS NULL OR c.id != :id)")
     long countByPhoneAndIdNot(@Param("phone") String phone, @Param("id") Long id);
 
@@ -0,0 +1,37 @@
+package com.example.customer.repository;
+
+import com.example.customer.entity.CustomerTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CustomerTombstoneRepository extends JpaRepository<CustomerTombstone, Long> {
+
+    /**
+     * 按 (deleted_time, id) 从水位之后向前读取，until之后的记录留待下一次同步
+     */
+    @Query("SELECT t FROM CustomerTombstone t WHERE " +
+           "(t.deletedTime > :since OR (t.deletedTime = :since AND t.id > :lastId)) AND t.deletedTime <= :until " +
+           "ORDER BY t.deletedTime ASC, t.id ASC")
+    List<CustomerTombstone> findDeletedSince(@Param("since") LocalDateTime since,
+                                             @Param("lastId") long lastId,
+                                             @Param("until") LocalDateTime until,
+                                             Pageable limit);
+
+    /**
+     * 列表ETag用的删除标记：最大记录ID和最近删除时间
+     */
+    @Query("SELECT MAX(t.id), MAX(t.deletedTime) FROM CustomerTombstone t")
+    List<Object[]> findChangeMarker();
+
+    @Modifying
+    @Query("DELETE FROM CustomerTombstone t WHERE t.deletedTime < :cutoff")
+    int deleteByDeletedTimeBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,683 @@
+package com.example.customer.repository;
+
+import com.example.customer.config.CustomerShards;
+import com.example.customer.config.CustomerShards.Shard;
+import com.example.customer.dto.CustomerCursor;
+import com.example.customer.dto.CustomerRevision;
+import com.example.customer.entity.Customer;
+import com.example.customer.entity.Gender;
+import com.example.customer.exception.InvalidCustomerDataException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * 分片模式下的客户存储（JDBC）
+ * 新客户写入手机号哈希所在的分片，同一分片的 customer_phones 表登记手机号占用，二者在一个本地事务内完成；
+ * 修改手机号时客户留在原分片（ID不变），先占用新手机号、再更新客户、最后释放旧手机号。
+ * 多分片查询并行执行，每个分片按相同顺序取前 offset+size 行，合并后再截取当前页。
+ * 合并时的字符串顺序必须与分片库的排序一致，否则分页和游标会漏行或重复：
+ * 文本列使用二进制排序规则（shard-schema.sql中的 utf8mb4_bin），MySQL按码点比较、忽略末尾空格（PAD SPACE）；
+ * H2忽略COLLATE子句，按UTF-16码元比较（String.compareTo），分片URL不能开启IGNORECASE
+ */
+@Repository
+@ConditionalOnProperty(name = "customer.sharding.enabled", havingValue = "true")
+public class ShardedCustomerRepository {
+
+    private static final String COLUMNS =
+            "id, name, phone, email, address, age, gender, created_time, updated_time, version";
+
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM customers WHERE 1 = 1";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO customers (name, phone, email, address, age, gender, created_time, updated_time, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String UPDATE_SQL =
+            "UPDATE customers SET name = ?, phone = ?, email = ?, address = ?, age = ?, gender = ?, updated_time = ?, " +
+            "version = version + 1 WHERE id = ? AND version = ?";
+
+    private static final String CLAIM_SQL =
+            "INSERT INTO customer_phones (phone, customer_id, claimed_time) VALUES (?, ?, ?)";
+
+    private static final String TAKE_OVER_CLAIM_SQL =
+            "UPDATE customer_phones SET customer_id = ?, claimed_time = ? WHERE phone = ? AND customer_id = ?";
+
+    private static final String RELEASE_CLAIM_SQL = "DELETE FROM customer_phones WHERE phone = ? AND customer_id = ?";
+
+    /**
+     * 占用记录指向的客户并不使用该手机号（修改或删除中途失败留下的），超过该时长后可被新客户接管；
+     * 时长内视为另一个请求正在修改手机号
+     */
+    private static final Duration STALE_CLAIM_AGE = Duration.ofMinutes(1);
+
+    /**
+     * 可排序字段 -> 列名
+     */
+    private static final Map<String, String> SORT_COLUMNS = new HashMap<>();
+
+    static {
+        SORT_COLUMNS.put("id", "id");
+        SORT_COLUMNS.put("name", "name");
+        SORT_COLUMNS.put("phone", "phone");
+        SORT_COLUMNS.put("email", "email");
+        SORT_COLUMNS.put("address", "address");
+        SORT_COLUMNS.put("age", "age");
+        SORT_COLUMNS.put("gender", "gender");
+        SORT_COLUMNS.put("createdTime", "created_time");
+        SORT_COLUMNS.put("updatedTime", "updated_time");
+        SORT_COLUMNS.put("version", "version");
+    }
+
+    private final CustomerShards shards;
+
+    /**
+     * 分片库的文本排序，首次合并时按数据库类型确定
+     */
+    private volatile Comparator<String> textOrder;
+
+    @Autowired
+    public ShardedCustomerRepository(CustomerShards shards) {
+        this.shards = shards;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    // ---------- 单分片读写 ----------
+
+    public Optional<Customer> findById(Long id) {
+        Shard shard = shards.forId(id);
+        if (shard == null) {
+            return Optional.empty();
+        }
+        List<Customer> rows = shard.getJdbcTemplate().query(SELECT + " AND id = ?", rowMapper(shard),
+                shard.toLocalId(id));
+        return rows.stream().filter(customer -> customer.getId().equals(id)).findFirst();
+    }
+
+    public Optional<CustomerRevision> findRevisionById(Long id) {
+        Shard shard = shards.forId(id);
+        if (shard == null) {
+            return Optional.empty();
+        }
+        List<CustomerRevision> rows = shard.getJdbcTemplate().query(
+                "SELECT version, updated_time FROM customers WHERE id = ?",
+                (rs, rowNum) -> new CustomerRevision(id, rs.getLong(1), toLocalDateTime(rs.getTimestamp(2))),
+                shard.toLocalId(id));
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * 通常客户就在手机号所在的分片；修改过手机号的客户经占用表找到其所在分片
+     */
+    public Optional<Customer> findByPhone(String phone) {
+        Shard shard = shards.forPhone(phone);
+        List<Customer> rows = shard.getJdbcTemplate().query(SELECT + " AND phone = ?", rowMapper(shard), phone);
+        if (!rows.isEmpty()) {
+            return Optional.of(rows.get(0));
+        }
+        Claim claim = findClaim(shard, phone);
+        if (claim == null || shards.forId(claim.customerId) == shard) {
+            return Optional.empty();
+        }
+        return findById(claim.customerId).filter(customer -> phone.equals(customer.getPhone()));
+    }
+
+    /**
+     * @return 使用该手机号的客户ID；占用记录已失效时返回空
+     */
+    public Optional<Long> findPhoneOwner(String phone) {
+        Claim claim = findClaim(shards.forPhone(phone), phone);
+        if (claim == null || (!ownsPhone(claim.customerId, phone) && claim.isStale(LocalDateTime.now()))) {
+            return Optional.empty();
+        }
+        return Optional.of(claim.customerId);
+    }
+
+    /**
+     * 新增客户
+     *
+     * @throws DuplicateKeyException 手机号已被占用
+     */
+    public Customer insert(Customer customer) {
+        Shard shard = shards.forPhone(customer.getPhone());
+        LocalDateTime now = LocalDateTime.now();
+        return shard.getTransactionTemplate().execute(status -> {
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            shard.getJdbcTemplate().update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_SQL, new String[]{"id"});
+                bindColumns(ps, customer);
+                ps.setTimestamp(7, Timestamp.valueOf(now));
+                ps.setTimestamp(8, Timestamp.valueOf(now));
+                return ps;
+            }, keyHolder);
+            long id = shard.toGlobalId(keyHolder.getKey().longValue());
+            claim(shard, customer.getPhone(), id, now);
+            return customer.toBuilder()
+                    .id(id)
+                    .createdTime(now)
+                    .updatedTime(now)
+                    .version(0L)
+                    .build();
+        });
+    }
+
+    /**
+     * 按版本号更新客户；手机号变化时跨分片转移占用记录
+     *
+     * @throws DuplicateKeyException              新手机号已被占用
+     * @throws OptimisticLockingFailureException 版本号与数据库不一致
+     */
+    public Customer update(Customer previous, Customer updated) {
+        Long id = previous.getId();
+        Shard home = shards.forId(id);
+        String oldPhone = previous.getPhone();
+        String newPhone = updated.getPhone();
+        boolean phoneChanged = !oldPhone.equals(newPhone);
+        Shard newClaimShard = shards.forPhone(newPhone);
+        Shard oldClaimShard = shards.forPhone(oldPhone);
+        LocalDateTime now = LocalDateTime.now();
+
+        if (phoneChanged && newClaimShard != home) {
+            claim(newClaimShard, newPhone, id, now);
+        }
+        try {
+            home.getTransactionTemplate().execute(status -> {
+                if (phoneChanged && newClaimShard == home) {
+                    claim(home, newPhone, id, now);
+                }
+                int count = home.getJdbcTemplate().update(UPDATE_SQL, ps -> {
+                    bindColumns(ps, updated);
+                    ps.setTimestamp(7, Timestamp.valueOf(now));
+                    ps.setLong(8, home.toLocalId(id));
+                    ps.setLong(9, updated.getVersion());
+                });
+                if (count == 0) {
+                    throw new OptimisticLockingFailureException("Customer " + id + " was modified concurrently");
+                }
+                if (phoneChanged && oldClaimShard == home) {
+                    release(home, oldPhone, id);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            if (phoneChanged && newClaimShard != home) {
+                release(newClaimShard, newPhone, id);
+            }
+            throw e;
+        }
+        if (phoneChanged && oldClaimShard != home) {
+            release(oldClaimShard, oldPhone, id);
+        }
+        return updated.toBuilder()
+                .createdTime(previous.getCreatedTime())
+                .updatedTime(now)
+                .version(updated.getVersion() + 1)
+                .build();
+    }
+
+    /**
+     * @throws EmptyResultDataAccessException 客户已被并发删除
+     */
+    public void delete(Customer customer) {
+        Long id = customer.getId();
+        Shard home = shards.forId(id);
+        Shard claimShard = shards.forPhone(customer.getPhone());
+        home.getTransactionTemplate().execute(status -> {
+            if (home.getJdbcTemplate().update("DELETE FROM customers WHERE id = ?", home.toLocalId(id)) == 0) {
+                throw new EmptyResultDataAccessException(1);
+            }
+            if (claimShard == home) {
+                release(home, customer.getPhone(), id);
+            }
+            return null;
+        });
+        if (claimShard != home) {
+            release(claimShard, customer.getPhone(), id);
+        }
+    }
+
+    // ---------- 跨分片查询 ----------
+
+    public Page<Customer> findWithFilters(String name, String phone, String email, Pageable pageable) {
+        Filter filter = filters(name, phone, email);
+        if (pageable.isUnpaged()) {
+            List<Customer> all = query(filter, Sort.unsorted(), -1);
+            return new PageImpl<>(all);
+        }
+        long limit = pageable.getOffset() + pageable.getPageSize();
+        List<ShardPage> parts = shards.scatter(shard -> new ShardPage(
+                select(shard, filter, pageable.getSort(), limit),
+                count(shard, filter)));
+        List<Customer> rows = new ArrayList<>();
+        long total = 0;
+        for (ShardPage part : parts) {
+            rows.addAll(part.rows);
+            total += part.count;
+        }
+        return new PageImpl<>(page(rows, comparator(pageable.getSort()), pageable.getOffset(), pageable.getPageSize()),
+                pageable, total);
+    }
+
+    public Slice<Customer> findSliceWithFilters(String name, String phone, String email, Pageable pageable) {
+        Filter filter = filters(name, phone, email);
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(query(filter, Sort.unsorted(), -1));
+        }
+        // 多取一行判断是否还有下一页
+        List<Customer> rows = query(filter, pageable.getSort(), pageable.getOffset() + pageable.getPageSize() + 1);
+        boolean hasNext = rows.size() > pageable.getOffset() + pageable.getPageSize();
+        return new SliceImpl<>(page(rows, comparator(pageable.getSort()), pageable.getOffset(), pageable.getPageSize()),
+                pageable, hasNext);
+    }
+
+    /**
+     * 键集分页：各分片从游标之后各取limit行，合并后取前limit行
+     */
+    public List<Customer> seek(String name, String phone, String email, CustomerCursor.SortKey sortKey,
+                               boolean descending, CustomerCursor after, int limit) {
+        String column = SORT_COLUMNS.get(sortKey.getProperty());
+        String op = descending ? "<" : ">";
+        Sort sort = Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, sortKey.getProperty());
+        if (sortKey != CustomerCursor.SortKey.ID) {
+            sort = sort.and(Sort.by(sort.iterator().next().getDirection(), "id"));
+        }
+        Filter base = filters(name, phone, email);
+        Filter filter = after == null ? base : (shard, sql, args) -> {
+            base.appendTo(shard, sql, args);
+            long bound = descending ? shard.localIdBelow(after.getLastId()) : shard.localIdAbove(after.getLastId());
+            if (sortKey == CustomerCursor.SortKey.ID) {
+                sql.append(" AND id ").append(op).append(" ?");
+            } else {
+                Object last = sortKey == CustomerCursor.SortKey.NAME
+                        ? after.getLastName()
+                        : Timestamp.valueOf(after.getLastCreatedTime());
+                sql.append(" AND (").append(column).append(' ').append(op).append(" ? OR (")
+                        .append(column).append(" = ? AND id ").append(op).append(" ?))");
+                args.add(last);
+                args.add(last);
+            }
+            args.add(bound);
+        };
+        return query(filter, sort, limit);
+    }
+
+    public List<Customer> findAll() {
+        return query(filters(null, null, null), Sort.by("id"), -1);
+    }
+
+    public List<Customer> findByNameContaining(String name) {
+        return query(filters(name, null, null), Sort.by("id"), -1);
+    }
+
+    public List<Customer> findByAgeRange(Integer minAge, Integer maxAge) {
+        return query((shard, sql, args) -> {
+            if (minAge != null) {
+                sql.append(" AND age >= ?");
+                args.add(minAge);
+            }
+            if (maxAge != null) {
+                sql.append(" AND age <= ?");
+                args.add(maxAge);
+            }
+        }, Sort.by("id"), -1);
+    }
+
+    public List<Customer> findByGender(Gender gender) {
+        return query((shard, sql, args) -> {
+            sql.append(" AND gender = ?");
+            args.add(gender.name());
+        }, Sort.by("id"), -1);
+    }
+
+    public long count() {
+        Filter none = filters(null, null, null);
+        return shards.scatter(shard -> count(shard, none)).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * 列表ETag用的变更标记：各分片的行数、版本号之和、ID之和分别相加，修改时间取最大值，
+     * 返回形式与 CustomerRepository.findChangeMarker 相同
+     */
+    public Object[] findChangeMarker() {
+        long count = 0;
+        long versionSum = 0;
+        long idSum = 0;
+        LocalDateTime lastUpdated = null;
+        for (Object[] part : shards.scatter(shard -> shard.getJdbcTemplate().queryForObject(
+                "SELECT COUNT(*), COALESCE(SUM(version), 0), COALESCE(SUM(id), 0), MAX(updated_time) FROM customers",
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                        toLocalDateTime(rs.getTimestamp(4))}))) {
+            count += (Long) part[0];
+            versionSum += (Long) part[1];
+            idSum += (Long) part[2];
+            LocalDateTime updated = (LocalDateTime) part[3];
+            if (updated != null && (lastUpdated == null || updated.isAfter(lastUpdated))) {
+                lastUpdated = updated;
+            }
+        }
+        return new Object[]{count, versionSum, idSum, lastUpdated};
+    }
+
+    /**
+     * 统计校准用的分组计数，返回形式与 CustomerRepository 中的同名查询相同
+     */
+    public List<Object[]> countGroupByGender() {
+        return sumGroups("SELECT gender, COUNT(*) FROM customers GROUP BY gender",
+                value -> value != null ? Gender.valueOf((String) value) : null);
+    }
+
+    public List<Object[]> countGroupByAge() {
+        return sumGroups("SELECT age, COUNT(*) FROM customers GROUP BY age",
+                value -> value != null ? ((Number) value).intValue() : null);
+    }
+
+    public List<Object[]> countCreatedPerDaySince(LocalDateTime since) {
+        return sumGroups("SELECT CAST(created_time AS DATE), COUNT(*) FROM customers " +
+                         "WHERE created_time >= ? GROUP BY CAST(created_time AS DATE)",
+                value -> ((Date) value).toLocalDate(), Timestamp.valueOf(since));
+    }
+
+    // ---------- 内部实现 ----------
+
+    /**
+     * 占用手机号；已被占用时，只有占用记录已失效才接管
+     */
+    private void claim(Shard shard, String phone, long customerId, LocalDateTime now) {
+        try {
+            shard.getJdbcTemplate().update(CLAIM_SQL, phone, customerId, Timestamp.valueOf(now));
+        } catch (DuplicateKeyException e) {
+            Claim existing = findClaim(shard, phone);
+            if (existing != null && existing.customerId == customerId) {
+                return;
+            }
+            if (existing != null && existing.isStale(now) && !ownsPhone(existing.customerId, phone)
+                    && shard.getJdbcTemplate().update(TAKE_OVER_CLAIM_SQL,
+                            customerId, Timestamp.valueOf(now), phone, existing.customerId) == 1) {
+                return;
+            }
+            throw e;
+        }
+    }
+
+    private void release(Shard shard, String phone, long customerId) {
+        shard.getJdbcTemplate().update(RELEASE_CLAIM_SQL, phone, customerId);
+    }
+
+    private Claim findClaim(Shard shard, String phone) {
+        List<Claim> claims = shard.getJdbcTemplate().query(
+                "SELECT customer_id, claimed_time FROM customer_phones WHERE phone = ?",
+                (rs, rowNum) -> new Claim(rs.getLong(1), toLocalDateTime(rs.getTimestamp(2))), phone);
+        return claims.isEmpty() ? null : claims.get(0);
+    }
+
+    private boolean ownsPhone(long customerId, String phone) {
+        Shard shard = shards.forId(customerId);
+        Integer count = shard.getJdbcTemplate().queryForObject(
+                "SELECT COUNT(*) FROM customers WHERE id = ? AND phone = ?", Integer.class,
+                shard.toLocalId(customerId), phone);
+        return count != null && count > 0;
+    }
+
+    private List<Customer> query(Filter filter, Sort sort, long limit) {
+        List<Customer> rows = new ArrayList<>();
+        for (List<Customer> part : shards.scatter(shard -> select(shard, filter, sort, limit))) {
+            rows.addAll(part);
+        }
+        return page(rows, comparator(sort), 0, limit < 0 ? rows.size() : limit);
+    }
+
+    private List<Customer> select(Shard shard, Filter filter, Sort sort, long limit) {
+        StringBuilder sql = new StringBuilder(SELECT);
+        List<Object> args = new ArrayList<>();
+        filter.appendTo(shard, sql, args);
+        sql.append(" ORDER BY ");
+        for (Sort.Order order : sort) {
+            sql.append(column(order.getProperty())).append(order.isAscending() ? " ASC, " : " DESC, ");
+        }
+        sql.append("id ASC");
+        if (limit >= 0) {
+            sql.append(" LIMIT ?");
+            args.add(limit);
+        }
+        return shard.getJdbcTemplate().query(sql.toString(), rowMapper(shard), args.toArray());
+    }
+
+    private long count(Shard shard, Filter filter) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM customers WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        filter.appendTo(shard, sql, args);
+        Long count = shard.getJdbcTemplate().queryForObject(sql.toString(), Long.class, args.toArray());
+        return count != null ? count : 0;
+    }
+
+    private <K> List<Object[]> sumGroups(String sql, Function<Object, K> key, Object... args) {
+        List<Map<K, Long>> parts = shards.scatter(shard -> {
+            Map<K, Long> counts = new HashMap<>();
+            shard.getJdbcTemplate().query(sql, rs -> {
+                counts.merge(key.apply(rs.getObject(1)), rs.getLong(2), Long::sum);
+            }, args);
+            return counts;
+        });
+        Map<K, Long> total = new HashMap<>();
+        parts.forEach(part -> part.forEach((k, v) -> total.merge(k, v, Long::sum)));
+        List<Object[]> rows = new ArrayList<>(total.size());
+        total.forEach((k, v) -> rows.add(new Object[]{k, v}));
+        return rows;
+    }
+
+    /**
+     * 各分片的结果已按同一顺序排好，拼接后排序（TimSort按已有的有序段归并），再截取 [offset, offset+size)
+     */
+    private static List<Customer> page(List<Customer> rows, Comparator<Customer> comparator, long offset, long size) {
+        rows.sort(comparator);
+        if (offset >= rows.size()) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(rows.subList((int) offset, (int) Math.min(rows.size(), offset + size)));
+    }
+
+    private static Filter filters(String name, String phone, String email) {
+        return (shard, sql, args) -> {
+            if (name != null) {
+                sql.append(" AND LOWER(name) LIKE ?");
+                args.add("%" + name.toLowerCase(Locale.ROOT) + "%");
+            }
+            if (phone != null) {
+                sql.append(" AND phone LIKE ?");
+                args.add("%" + phone + "%");
+            }
+            if (email != null) {
+                sql.append(" AND LOWER(email) LIKE ?");
+                args.add("%" + email.toLowerCase(Locale.ROOT) + "%");
+            }
+        };
+    }
+
+    private static String column(String property) {
+        String column = SORT_COLUMNS.get(property);
+        if (column == null) {
+            throw new InvalidCustomerDataException("不支持的排序字段: " + property);
+        }
+        return column;
+    }
+
+    /**
+     * 与 select 生成的 ORDER BY 一致：各排序字段（NULL最小），最后按ID升序
+     */
+    private Comparator<Customer> comparator(Sort sort) {
+        Comparator<Customer> result = null;
+        for (Sort.Order order : sort) {
+            column(order.getProperty());
+            Comparator<Customer> next = propertyComparator(order.getProperty());
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            result = result == null ? next : result.thenComparing(next);
+        }
+        Comparator<Customer> byId = Comparator.comparing(Customer::getId);
+        return result == null ? byId : result.thenComparing(byId);
+    }
+
+    private Comparator<Customer> propertyComparator(String property) {
+        Comparator<String> text = Comparator.nullsFirst(textOrder());
+        switch (property) {
+            case "name":
+                return Comparator.comparing(Customer::getName, text);
+            case "phone":
+                return Comparator.comparing(Customer::getPhone, text);
+            case "email":
+                return Comparator.comparing(Customer::getEmail, text);
+            case "address":
+                return Comparator.comparing(Customer::getAddress, text);
+            case "gender":
+                return Comparator.comparing(c -> c.getGender() != null ? c.getGender().name() : null, text);
+            case "age":
+                return Comparator.comparing(Customer::getAge, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "createdTime":
+                return Comparator.comparing(Customer::getCreatedTime, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "updatedTime":
+                return Comparator.comparing(Customer::getUpdatedTime, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "version":
+                return Comparator.comparing(Customer::getVersion, Comparator.nullsFirst(Comparator.naturalOrder()));
+            default:
+                return Comparator.comparing(Customer::getId);
+        }
+    }
+
+    private Comparator<String> textOrder() {
+        Comparator<String> order = textOrder;
+        if (order == null) {
+            String product = shards.get(0).getJdbcTemplate().execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            order = "H2".equalsIgnoreCase(product) ? Comparator.<String>naturalOrder() : ShardedCustomerRepository::comparePadSpace;
+            textOrder = order;
+        }
+        return order;
+    }
+
+    /**
+     * 与MySQL utf8mb4_bin一致：按码点比较，较短的字符串视为以空格补齐
+     */
+    private static int comparePadSpace(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() || j < b.length()) {
+            int x = i < a.length() ? a.codePointAt(i) : ' ';
+            int y = j < b.length() ? b.codePointAt(j) : ' ';
+            if (x != y) {
+                return Integer.compare(x, y);
+            }
+            i += i < a.length() ? Character.charCount(x) : 1;
+            j += j < b.length() ? Character.charCount(y) : 1;
+        }
+        return 0;
+    }
+
+    private static void bindColumns(PreparedStatement ps, Customer customer) throws SQLException {
+        ps.setString(1, customer.getName());
+        ps.setString(2, customer.getPhone());
+        ps.setString(3, customer.getEmail());
+        ps.setString(4, customer.getAddress());
+        if (customer.getAge() != null) {
+            ps.setInt(5, customer.getAge());
+        } else {
+            ps.setNull(5, Types.INTEGER);
+        }
+        ps.setString(6, customer.getGender() != null ? customer.getGender().name() : null);
+    }
+
+    private static RowMapper<Customer> rowMapper(Shard shard) {
+        return (rs, rowNum) -> Customer.builder()
+                .id(shard.toGlobalId(rs.getLong("id")))
+                .name(rs.getString("name"))
+                .phone(rs.getString("phone"))
+                .email(rs.getString("email"))
+                .address(rs.getString("address"))
+                .age(getInteger(rs, "age"))
+                .gender(rs.getString("gender") != null ? Gender.valueOf(rs.getString("gender")) : null)
+                .createdTime(toLocalDateTime(rs.getTimestamp("created_time")))
+                .updatedTime(toLocalDateTime(rs.getTimestamp("updated_time")))
+                .version(rs.getLong("version"))
+                .build();
+    }
+
+    private static Integer getInteger(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    /**
+     * 向 WHERE 1 = 1 之后追加条件；ID条件需按分片换算，因此传入分片
+     */
+    @FunctionalInterface
+    private interface Filter {
+
+        void appendTo(Shard shard, StringBuilder sql, List<Object> args);
+    }
+
+    private static final class ShardPage {
+
+        final List<Customer> rows;
+
+        final long count;
+
+        ShardPage(List<Customer> rows, long count) {
+            this.rows = rows;
+            this.count = count;
+        }
+    }
+
+    private static final class Claim {
+
+        final long customerId;
+
+        final LocalDateTime claimedTime;
+
+        Claim(long customerId, LocalDateTime claimedTime) {
+            this.customerId = customerId;
+            this.claimedTime = claimedTime;
+        }
+
+        boolean isStale(LocalDateTime now) {
+            return claimedTime.isBefore(now.minus(STALE_CLAIM_AGE));
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.customer.service;
+
+import com.example.customer.dto.CustomerBatchRequest;
+import com.example.customer.dto.CustomerBatchResult;
+
+public interface CustomerBatchService {
+
+    /**
+     * 在一个事务内执行一批新增/更新/删除；校验失败、不存在或手机号冲突的条目单独报告，其余条目照常写入
+     */
+    CustomerBatchResult execute(CustomerBatchRequest request);
+}
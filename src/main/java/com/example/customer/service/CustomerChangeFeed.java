@@ -0,0 +1,14 @@
+package com.example.customer.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface CustomerChangeFeed {
+
+    /**
+     * 订阅客户变更事件（SSE）；lastEventId为断线前收到的最后一个事件ID，为空时只接收之后的新事件。
+     * 缓冲区已不包含续传位置时先推送reset事件，客户端应重新拉取全量数据
+     *
+     * @return 订阅数已达上限时返回null
+     */
+    SseEmitter subscribe(String lastEventId);
+}
@@ -0,0 +1,22 @@
+package com.example.customer.service;
+
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface CustomerExportService {
+
+    enum Format {
+        CSV,
+        NDJSON
+    }
+
+    /**
+     * 按列表页相同的过滤条件导出客户，逐行写入输出流，不在内存中汇总结果
+     *
+     * @return 导出的行数
+     */
+    long exportCustomers(String name, String phone, String email, Sort sort,
+                         Format format, OutputStream output) throws IOException;
+}
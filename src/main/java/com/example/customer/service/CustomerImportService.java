@@ -0,0 +1,19 @@
+package com.example.customer.service;
+
+import com.example.customer.dto.ImportReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface CustomerImportService {
+
+    /**
+     * 流式导入CSV，首行为表头：name,phone,email,address,age,gender（列顺序不限）
+     */
+    ImportReport importCsv(InputStream input) throws IOException;
+
+    /**
+     * 流式导入NDJSON，每行一个客户JSON对象
+     */
+    ImportReport importNdjson(InputStream input) throws IOException;
+}
@@ -1,29 +1,74 @@
 package com.example.customer.service;
 
+import com.example.customer.dto.CursorPage;
+import com.example.customer.dto.CustomerListItem;
+import com.example.customer.dto.CustomerPatch;
+import com.example.customer.dto.CustomerRevision;
+import com.example.customer.dto.CustomerStatistics;
 import com.example.customer.entity.Customer;
 import com.example.customer.entity.Gender;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface CustomerService {
 
     Customer saveCustomer(Customer customer);
 
+    /**
+     * 批量新增：一次手机号查重，全部保存后只刷新一次，插入可以按JDBC批量发送；任一手机号重复时整批不保存
+     */
+    List<Customer> saveCustomers(List<Customer> customers);
+
     Customer updateCustomer(Customer customer);
 
+    /**
+     * 部分更新：只写入出现的字段，patch中的version必须与当前版本一致，否则抛出CustomerVersionConflictException
+     */
+    Customer patchCustomer(Long id, CustomerPatch patch);
+
     void deleteCustomer(Long id);
 
     Optional<Customer> findCustomerById(Long id);
 
+    /**
+     * 单个客户的ETag/Last-Modified，优先取缓存，未命中时只查询版本号和修改时间
+     */
+    Optional<CustomerRevision> findCustomerRevision(Long id);
+
+    /**
+     * 客户表的全局变更版本，用于列表和筛选结果的条件请求
+     */
+    CustomerRevision getCustomerListRevision();
+
     List<Customer> findAllCustomers();
 
     Page<Customer> findCustomersWithPagination(Pageable pageable);
 
     Page<Customer> findCustomersWithFilters(String name, String phone, String email, Pageable pageable);
 
+    /**
+     * 只判断是否有下一页的列表查询，不执行过滤条件下的COUNT
+     */
+    Slice<Customer> findCustomerSliceWithFilters(String name, String phone, String email, Pageable pageable);
+
+    /**
+     * 键集（游标）分页查询，cursor为空时返回第一页
+     */
+    CursorPage<Customer> findCustomersByCursor(String name, String phone, String email,
+                                               String sortBy, String sortDir, String cursor, int size);
+
+    /**
+     * 列表页专用的投影查询，只取展示列，返回值不是托管实体
+     */
+    Page<CustomerListItem> findCustomerListItems(String name, String phone, String email, Pageable pageable);
+
+    List<CustomerListItem> findCustomerListItemsByName(String name);
+
     Optional<Customer> findCustomerByPhone(String phone);
 
     List<Customer> findCustomersByName(String name);
@@ -35,4 +80,17 @@ public interface CustomerService {
     boolean isPhoneExists(String phone, Long excludeId);
 
     long getTotalCustomerCount();
+
+    /**
+     * 客户缓存的命中/未命中/淘汰统计
+     */
+    Map<String, Object> getCacheStatistics();
+
+    /**
+     * 客户统计（内存聚合，不扫描客户表）
+     *
+     * @param ageBucketWidth 年龄直方图区间宽度
+     * @param days           每日新增的天数
+     */
+    CustomerStatistics getCustomerStatistics(int ageBucketWidth, int days);
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.customer.service;
+
+import com.example.customer.dto.CustomerDelta;
+import com.example.customer.entity.Customer;
+
+import java.util.Collection;
+
+public interface CustomerSyncService {
+
+    /**
+     * 读取水位之后的变更和删除；watermark为空时从头开始全量同步
+     *
+     * @throws com.example.customer.exception.SyncWatermarkExpiredException 水位早于删除记录保留期
+     */
+    CustomerDelta getChangesSince(String watermark, int limit);
+
+    /**
+     * 写入删除记录，须在删除客户的同一事务内调用
+     */
+    void recordDeletions(Collection<Customer> deleted);
+}
@@ -0,0 +1,524 @@
+package com.example.customer.service.impl;
+
+import com.example.customer.dto.CustomerBatchRequest;
+import com.example.customer.dto.CustomerBatchResult;
+import com.example.customer.dto.CustomerBatchResult.ItemResult;
+import com.example.customer.dto.CustomerBatchResult.Operation;
+import com.example.customer.entity.Customer;
+import com.example.customer.entity.Gender;
+import com.example.customer.event.CustomerChangedEvent;
+import com.example.customer.exception.InvalidCustomerDataException;
+import com.example.customer.repository.CustomerRepository;
+import com.example.customer.service.CustomerBatchService;
+import com.example.customer.service.CustomerSyncService;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 客户批量写
+ * 整批一个事务：一次查询取回待更新/删除的客户，一次查询完成手机号查重，
+ * 删除、更新、插入各一次JDBC批量执行；数据库往返次数与条目数无关。
+ * 与并发写入冲突时整批回滚重做，最多 max-attempts 次；最后一次逐条写入更新和插入，
+ * 仍冲突的条目在保存点回滚后记为409，其余条目照常提交
+ */
+@Service
+@Timed(value = "customer.service", histogram = true)
+public class CustomerBatchServiceImpl implements CustomerBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerBatchServiceImpl.class);
+
+    private static final String SELECT_BY_IDS_SQL =
+            "SELECT id, name, phone, email, address, age, gender, created_time, updated_time, version " +
+            "FROM customers WHERE id IN (:ids)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO customers (name, phone, email, address, age, gender, created_time, updated_time, id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+            "UPDATE customers SET name = ?, phone = ?, email = ?, address = ?, age = ?, gender = ?, updated_time = ?, " +
+            "version = version + 1 WHERE id = ? AND version = ?";
+
+    private static final String DELETE_SQL = "DELETE FROM customers WHERE id = ?";
+
+    private final CustomerRepository customerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CustomerSyncService customerSyncService;
+    private final CustomerSecondLevelCache secondLevelCache;
+    private final CustomerIdAllocator idAllocator;
+    private final int maxSize;
+    private final int maxAttempts;
+
+    @Autowired
+    public CustomerBatchServiceImpl(CustomerRepository customerRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                    TransactionTemplate transactionTemplate,
+                                    Validator validator,
+                                    ApplicationEventPublisher eventPublisher,
+                                    CustomerSyncService customerSyncService,
+                                    CustomerSecondLevelCache secondLevelCache,
+                                    CustomerIdAllocator idAllocator,
+                                    @Value("${customer.batch.max-size:1000}") int maxSize,
+                                    @Value("${customer.batch.max-attempts:3}") int maxAttempts) {
+        this.customerRepository = customerRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.customerSyncService = customerSyncService;
+        this.secondLevelCache = secondLevelCache;
+        this.idAllocator = idAllocator;
+        this.maxSize = maxSize;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    @Override
+    public CustomerBatchResult execute(CustomerBatchRequest request) {
+        List<Customer> creates = nullToEmpty(request.getCreate());
+        List<Customer> updates = nullToEmpty(request.getUpdate());
+        List<Long> deletes = nullToEmpty(request.getDelete());
+        int total = creates.size() + updates.size() + deletes.size();
+        if (total > maxSize) {
+            throw new InvalidCustomerDataException("单次批量操作不能超过" + maxSize + "条，当前" + total + "条");
+        }
+
+        long startMillis = System.currentTimeMillis();
+        CustomerBatchResult result = null;
+        for (int attempt = 1; result == null; attempt++) {
+            // 最后一次逐条隔离写入，冲突只影响对应条目，不再抛出
+            boolean isolate = attempt >= maxAttempts;
+            try {
+                result = transactionTemplate.execute(status ->
+                        new BatchSession(creates, updates, deletes, isolate).apply());
+            } catch (DuplicateKeyException | OptimisticLockingFailureException e) {
+                // 与并发写入冲突，整批已回滚；重做时冲突的手机号或版本会在重新读取后被识别为单条失败
+                logger.warn("Concurrent modification detected during batch write (attempt {}/{}), retrying batch of {} items: {}",
+                        attempt, maxAttempts, total, e.getMessage());
+            }
+        }
+        result.finish(startMillis);
+        logger.info("Customer batch finished: {} succeeded, {} failed in {} ms",
+                result.getSucceeded(), result.getFailed(), result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * 一次批量写的状态；请求中的对象不被修改，失败重做时可以直接复用
+     */
+    private class BatchSession {
+
+        private final List<Customer> creates;
+        private final List<Customer> updates;
+        private final List<Long> deletes;
+
+        /**
+         * 逐条在保存点内写入更新和插入，冲突的条目记为失败
+         */
+        private final boolean isolate;
+
+        private final ItemResult[] createResults;
+        private final ItemResult[] updateResults;
+        private final ItemResult[] deleteResults;
+
+        private final Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        BatchSession(List<Customer> creates, List<Customer> updates, List<Long> deletes, boolean isolate) {
+            this.creates = creates;
+            this.updates = updates;
+            this.deletes = deletes;
+            this.isolate = isolate;
+            this.createResults = new ItemResult[creates.size()];
+            this.updateResults = new ItemResult[updates.size()];
+            this.deleteResults = new ItemResult[deletes.size()];
+        }
+
+        CustomerBatchResult apply() {
+            // 1. 逐条校验，同一客户在删除和更新中只能出现一次
+            Set<Long> claimedIds = new HashSet<>();
+            for (int i = 0; i < deletes.size(); i++) {
+                Long id = deletes.get(i);
+                if (id == null) {
+                    deleteResults[i] = failure(Operation.DELETE, i, null, 400, "客户ID不能为空");
+                } else if (!claimedIds.add(id)) {
+                    deleteResults[i] = failure(Operation.DELETE, i, id, 409, "客户在同一批次中重复出现");
+                }
+            }
+            for (int i = 0; i < updates.size(); i++) {
+                Customer customer = updates.get(i);
+                if (customer == null || customer.getId() == null) {
+                    updateResults[i] = failure(Operation.UPDATE, i, null, 400, "更新客户时ID不能为空");
+                } else if (!claimedIds.add(customer.getId())) {
+                    updateResults[i] = failure(Operation.UPDATE, i, customer.getId(), 409, "客户在同一批次中重复出现");
+                } else {
+                    updateResults[i] = validate(Operation.UPDATE, i, customer);
+                }
+            }
+            for (int i = 0; i < creates.size(); i++) {
+                Customer customer = creates.get(i);
+                createResults[i] = customer == null
+                        ? failure(Operation.CREATE, i, null, 400, "客户数据不能为空")
+                        : validate(Operation.CREATE, i, customer);
+            }
+
+            // 2. 一次查询取回所有待更新/删除的客户，作为存在性检查和变更前快照
+            Map<Long, Customer> existing = loadExisting(claimedIds);
+            List<Customer> toDelete = new ArrayList<>();
+            for (int i = 0; i < deletes.size(); i++) {
+                if (deleteResults[i] == null) {
+                    Customer current = existing.get(deletes.get(i));
+                    if (current == null) {
+                        deleteResults[i] = failure(Operation.DELETE, i, deletes.get(i), 404, "客户不存在");
+                    } else {
+                        toDelete.add(current);
+                    }
+                }
+            }
+            Set<Long> deletedIds = toDelete.stream().map(Customer::getId).collect(Collectors.toSet());
+
+            // 3. 需要查重的手机号：所有新增，以及手机号有变化的更新
+            Set<String> claimedPhones = new HashSet<>();
+            List<Integer> pendingUpdates = new ArrayList<>();
+            for (int i = 0; i < updates.size(); i++) {
+                if (updateResults[i] != null) {
+                    continue;
+                }
+                Customer customer = updates.get(i);
+                Customer current = existing.get(customer.getId());
+                if (current == null) {
+                    updateResults[i] = failure(Operation.UPDATE, i, customer.getId(), 404, "客户不存在");
+                    continue;
+                }
+                // 携带版本号时按乐观锁校验，未携带时以读取到的版本为准
+                if (customer.getVersion() != null && !customer.getVersion().equals(current.getVersion())) {
+                    updateResults[i] = failure(Operation.UPDATE, i, customer.getId(), 409, "客户已被其他人修改");
+                    continue;
+                }
+                pendingUpdates.add(i);
+                if (!current.getPhone().equals(customer.getPhone())) {
+                    claimedPhones.add(customer.getPhone());
+                }
+            }
+            for (int i = 0; i < creates.size(); i++) {
+                if (createResults[i] == null) {
+                    claimedPhones.add(creates.get(i).getPhone());
+                }
+            }
+            Map<String, Long> phoneOwners = findPhoneOwners(claimedPhones);
+
+            // 已存在于其他客户（且该客户不在本批删除之列），或在本批中已被前面的条目占用，均视为冲突
+            Set<String> takenInBatch = new HashSet<>();
+            List<Customer[]> toUpdate = new ArrayList<>();
+            List<Integer> toUpdateIndexes = new ArrayList<>();
+            for (Integer i : pendingUpdates) {
+                Customer customer = updates.get(i);
+                Customer current = existing.get(customer.getId());
+                String conflict = current.getPhone().equals(customer.getPhone()) ? null
+                        : phoneConflict(customer.getPhone(), customer.getId(), phoneOwners, deletedIds, takenInBatch);
+                if (conflict != null) {
+                    updateResults[i] = failure(Operation.UPDATE, i, customer.getId(), 409, conflict);
+                    continue;
+                }
+                takenInBatch.add(customer.getPhone());
+                Customer updated = customer.toBuilder()
+                        .createdTime(current.getCreatedTime())
+                        .updatedTime(now.toLocalDateTime())
+                        .version(current.getVersion() + 1)
+                        .build();
+                toUpdate.add(new Customer[]{current, updated});
+                toUpdateIndexes.add(i);
+                updateResults[i] = new ItemResult(Operation.UPDATE, i, customer.getId(), 200, null);
+            }
+            Map<String, Integer> toInsert = new LinkedHashMap<>();
+            for (int i = 0; i < creates.size(); i++) {
+                if (createResults[i] != null) {
+                    continue;
+                }
+                String phone = creates.get(i).getPhone();
+                String conflict = phoneConflict(phone, null, phoneOwners, deletedIds, takenInBatch);
+                if (conflict != null) {
+                    createResults[i] = failure(Operation.CREATE, i, null, 409, conflict);
+                    continue;
+                }
+                takenInBatch.add(phone);
+                toInsert.put(phone, i);
+            }
+
+            // 4. 批量写入：先删除（释放手机号），再更新，最后插入
+            if (!toDelete.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_SQL, toDelete, toDelete.size(),
+                        (PreparedStatement ps, Customer customer) -> ps.setLong(1, customer.getId()));
+                customerSyncService.recordDeletions(toDelete);
+            }
+            if (isolate) {
+                toUpdate = updateIsolated(toUpdate, toUpdateIndexes);
+            } else if (!toUpdate.isEmpty()) {
+                int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, toUpdate, toUpdate.size(),
+                        (PreparedStatement ps, Customer[] change) -> bindUpdate(ps, change[1], change[0].getVersion(), now));
+                // 读取后被并发修改的行影响0行（驱动返回SUCCESS_NO_INFO时无法判断，按成功处理）
+                for (int count : counts[0]) {
+                    if (count == 0) {
+                        throw new OptimisticLockingFailureException("Customer modified concurrently during batch update");
+                    }
+                }
+            }
+            List<Customer> inserted = insert(toInsert);
+            List<Long> changedIds = new ArrayList<>(deletedIds);
+            toUpdate.forEach(change -> changedIds.add(change[0].getId()));
+            secondLevelCache.evictAfterCommit(changedIds);
+
+            // 5. 发布变更事件，事务提交后由各监听方更新缓存、索引和计数
+            for (int i = 0; i < deletes.size(); i++) {
+                if (deleteResults[i] == null) {
+                    deleteResults[i] = new ItemResult(Operation.DELETE, i, deletes.get(i), 204, null);
+                }
+            }
+            toDelete.forEach(customer -> eventPublisher.publishEvent(CustomerChangedEvent.deleted(customer)));
+            toUpdate.forEach(change -> eventPublisher.publishEvent(CustomerChangedEvent.updated(change[0], change[1])));
+            inserted.forEach(customer -> eventPublisher.publishEvent(CustomerChangedEvent.created(customer)));
+
+            CustomerBatchResult result = new CustomerBatchResult();
+            for (ItemResult item : createResults) {
+                result.add(item);
+            }
+            for (ItemResult item : updateResults) {
+                result.add(item);
+            }
+            for (ItemResult item : deleteResults) {
+                result.add(item);
+            }
+            return result;
+        }
+
+        private ItemResult validate(Operation operation, int index, Customer customer) {
+            Set<ConstraintViolation<Customer>> violations = validator.validate(customer);
+            if (violations.isEmpty()) {
+                return null;
+            }
+            String message = violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            return failure(operation, index, customer.getId(), 400, message);
+        }
+
+        /**
+         * 逐条更新，返回实际写入的变更；读取后被并发修改或手机号被占用的条目记为409
+         */
+        private List<Customer[]> updateIsolated(List<Customer[]> toUpdate, List<Integer> indexes) {
+            List<Customer[]> applied = new ArrayList<>(toUpdate.size());
+            for (int k = 0; k < toUpdate.size(); k++) {
+                Customer[] change = toUpdate.get(k);
+                int i = indexes.get(k);
+                String conflict = writeIsolated(UPDATE_SQL,
+                        ps -> bindUpdate(ps, change[1], change[0].getVersion(), now),
+                        "客户已被其他人修改", "手机号已存在: " + change[1].getPhone());
+                if (conflict != null) {
+                    updateResults[i] = failure(Operation.UPDATE, i, change[0].getId(), 409, conflict);
+                } else {
+                    applied.add(change);
+                }
+            }
+            return applied;
+        }
+
+        /**
+         * 在保存点内执行单条写入；影响0行或唯一约束冲突时回滚到保存点并返回冲突原因，成功返回null。
+         * JpaTransactionManager不支持嵌套事务，保存点直接建在事务绑定的JDBC连接上
+         */
+        private String writeIsolated(String sql, PreparedStatementSetter setter,
+                                     String notAppliedMessage, String duplicateMessage) {
+            Savepoint savepoint = jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+            try {
+                if (jdbcTemplate.update(sql, setter) == 0) {
+                    rollbackTo(savepoint);
+                    return notAppliedMessage;
+                }
+                jdbcTemplate.execute((ConnectionCallback<Object>) connection -> {
+                    connection.releaseSavepoint(savepoint);
+                    return null;
+                });
+                return null;
+            } catch (DuplicateKeyException e) {
+                rollbackTo(savepoint);
+                return duplicateMessage;
+            }
+        }
+
+        private void rollbackTo(Savepoint savepoint) {
+            jdbcTemplate.execute((ConnectionCallback<Object>) connection -> {
+                connection.rollback(savepoint);
+                return null;
+            });
+        }
+
+        /**
+         * 预先分配主键后批量插入
+         */
+        private List<Customer> insert(Map<String, Integer> toInsert) {
+            if (toInsert.isEmpty()) {
+                return Collections.emptyList();
+            }
+            Map<String, Customer> byPhone = new HashMap<>(toInsert.size() * 2);
+            for (Integer i : toInsert.values()) {
+                Customer customer = creates.get(i).toBuilder()
+                        .id(null)
+                        .createdTime(now.toLocalDateTime())
+                        .updatedTime(now.toLocalDateTime())
+                        .version(0L)
+                        .build();
+                byPhone.put(customer.getPhone(), customer);
+            }
+            List<Customer> rows = new ArrayList<>(byPhone.values());
+            idAllocator.assignIds(rows);
+            if (!isolate) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(),
+                        (PreparedStatement ps, Customer customer) -> bindInsert(ps, customer, now));
+            }
+
+            List<Customer> inserted = new ArrayList<>(rows.size());
+            toInsert.forEach((phone, i) -> {
+                Customer customer = byPhone.get(phone);
+                String conflict = !isolate ? null : writeIsolated(INSERT_SQL,
+                        ps -> bindInsert(ps, customer, now), "客户未写入", "手机号已存在: " + phone);
+                if (conflict != null) {
+                    createResults[i] = failure(Operation.CREATE, i, null, 409, conflict);
+                } else {
+                    inserted.add(customer);
+                    createResults[i] = new ItemResult(Operation.CREATE, i, customer.getId(), 201, null);
+                }
+            });
+            return inserted;
+        }
+    }
+
+    private Map<Long, Customer> loadExisting(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Customer> existing = new HashMap<>(ids.size() * 2);
+        namedParameterJdbcTemplate.query(SELECT_BY_IDS_SQL, Collections.singletonMap("ids", ids),
+                (ResultSet rs) -> {
+                    Customer customer = mapCustomer(rs);
+                    existing.put(customer.getId(), customer);
+                });
+        return existing;
+    }
+
+    private Map<String, Long> findPhoneOwners(Set<String> phones) {
+        if (phones.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> owners = new HashMap<>(phones.size() * 2);
+        for (Object[] row : customerRepository.findIdsByPhones(phones)) {
+            owners.put((String) row[0], (Long) row[1]);
+        }
+        return owners;
+    }
+
+    /**
+     * 返回冲突原因，无冲突时返回null
+     */
+    private static String phoneConflict(String phone, Long selfId, Map<String, Long> phoneOwners,
+                                        Set<Long> deletedIds, Set<String> takenInBatch) {
+        if (takenInBatch.contains(phone)) {
+            return "手机号在同一批次中重复: " + phone;
+        }
+        Long owner = phoneOwners.get(phone);
+        if (owner != null && !owner.equals(selfId) && !deletedIds.contains(owner)) {
+            return "手机号已存在: " + phone;
+        }
+        return null;
+    }
+
+    private static ItemResult failure(Operation operation, int index, Long id, int status, String message) {
+        return new ItemResult(operation, index, id, status, message);
+    }
+
+    private static Customer mapCustomer(ResultSet rs) throws SQLException {
+        String gender = rs.getString("gender");
+        Timestamp createdTime = rs.getTimestamp("created_time");
+        Timestamp updatedTime = rs.getTimestamp("updated_time");
+        return Customer.builder()
+                .id(rs.getLong("id"))
+                .name(rs.getString("name"))
+                .phone(rs.getString("phone"))
+                .email(rs.getString("email"))
+                .address(rs.getString("address"))
+                .age(rs.getObject("age", Integer.class))
+                .gender(gender != null ? Gender.valueOf(gender) : null)
+                .createdTime(createdTime != null ? createdTime.toLocalDateTime() : null)
+                .updatedTime(updatedTime != null ? updatedTime.toLocalDateTime() : null)
+                .version(rs.getLong("version"))
+                .build();
+    }
+
+    private static void bindInsert(PreparedStatement ps, Customer customer, Timestamp now) throws SQLException {
+        bindFields(ps, customer);
+        ps.setTimestamp(7, now);
+        ps.setTimestamp(8, now);
+        ps.setLong(9, customer.getId());
+    }
+
+    private static void bindUpdate(PreparedStatement ps, Customer customer, long expectedVersion, Timestamp now)
+            throws SQLException {
+        bindFields(ps, customer);
+        ps.setTimestamp(7, now);
+        ps.setLong(8, customer.getId());
+        ps.setLong(9, expectedVersion);
+    }
+
+    private static void bindFields(PreparedStatement ps, Customer customer) throws SQLException {
+        ps.setString(1, customer.getName());
+        ps.setString(2, customer.getPhone());
+        ps.setString(3, customer.getEmail());
+        ps.setString(4, customer.getAddress());
+        if (customer.getAge() != null) {
+            ps.setInt(5, customer.getAge());
+        } else {
+            ps.setNull(5, Types.INTEGER);
+        }
+        ps.setString(6, customer.getGender() != null ? customer.getGender().name() : null);
+    }
+
+    private static <T> List<T> nullToEmpty(List<T> list) {
+        return list != null ? list : Collections.emptyList();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.customer.service.impl;
+
+import com.example.customer.config.ReadWriteRoutingDataSource;
+import com.example.customer.entity.Customer;
+import com.example.customer.event.CustomerChangedEvent;
+import com.example.customer.repository.CustomerRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 按ID和手机号读取客户的进程内缓存
+ * Caffeine实现（W-TinyLFU淘汰策略 + 写入后过期），热点客户的读取不再访问数据库。
+ * 手机号缓存只保存 手机号 -> ID 的映射，客户数据统一存放在ID缓存中。
+ * 缓存内部保存副本，返回给调用方的也是副本，避免调用方修改缓存中的对象。
+ * 写操作提交后根据变更事件失效对应条目（包括修改前的手机号）。
+ * 启用读写分离时加载走主库：缓存为所有用户共享，从库复制延迟前的旧数据不能进入缓存
+ */
+@Component
+public class CustomerCache {
+
+    private final CustomerRepository customerRepository;
+
+    private final Cache<Long, Customer> byId;
+
+    private final Cache<String, Long> phoneToId;
+
+    @Autowired
+    public CustomerCache(CustomerRepository customerRepository,
+                         @Value("${customer.cache.maximum-size:10000}") long maximumSize,
+                         @Value("${customer.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.customerRepository = customerRepository;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.phoneToId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Customer> findById(Long id) {
+        // 加载过程中对同一键的失效会等待加载完成后再执行，不会留下过期数据
+        Customer cached = byId.get(id, key -> ReadWriteRoutingDataSource.readFromPrimary(
+                () -> customerRepository.findById(key))
+                .map(CustomerCache::copy)
+                .orElse(null));
+        return Optional.ofNullable(cached).map(CustomerCache::copy);
+    }
+
+    /**
+     * 只查缓存，未命中时返回null，不访问数据库
+     */
+    public Customer getIfPresent(Long id) {
+        Customer cached = byId.getIfPresent(id);
+        return cached != null ? copy(cached) : null;
+    }
+
+    /**
+     * 客户数据只经由ID缓存的加载写入：在手机号加载器中直接写入ID缓存时，
+     * 读取后提交的更新可能先完成失效，随后写入的旧数据会一直保留到过期
+     */
+    public Optional<Customer> findByPhone(String phone) {
+        Long id = phoneToId.get(phone, key -> ReadWriteRoutingDataSource.readFromPrimary(
+                () -> customerRepository.findByPhone(key))
+                .map(Customer::getId)
+                .orElse(null));
+        return id != null ? findById(id) : Optional.empty();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        Customer customer = event.getCustomer();
+        if (customer.getId() != null) {
+            byId.invalidate(customer.getId());
+        }
+        if (customer.getPhone() != null) {
+            phoneToId.invalidate(customer.getPhone());
+        }
+        Customer previous = event.getPrevious();
+        if (previous != null && previous.getPhone() != null) {
+            phoneToId.invalidate(previous.getPhone());
+        }
+    }
+
+    public void invalidateAll() {
+        byId.invalidateAll();
+        phoneToId.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("byId", describe(byId.stats(), byId.estimatedSize()));
+        stats.put("byPhone", describe(phoneToId.stats(), phoneToId.estimatedSize()));
+        return stats;
+    }
+
+    private static Map<String, Object> describe(CacheStats stats, long size) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", size);
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+        return result;
+    }
+
+    private static Customer copy(Customer customer) {
+        return customer.toBuilder().build();
+    }
+}
@@ -0,0 +1,365 @@
+package com.example.customer.service.impl;
+
+import com.example.customer.dto.CustomerChangeNotification;
+import com.example.customer.entity.Customer;
+import com.example.customer.event.CustomerChangedEvent;
+import com.example.customer.service.CustomerChangeFeed;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 客户变更推送（SSE）
+ * 事务提交后的变更事件序列化一次后写入固定大小的环形缓冲区，写入方只做O(1)追加，从不等待订阅方。
+ * 订阅连接由异步Servlet挂起，空闲时不占用线程；有新事件或心跳时，每个订阅方最多占用一个分发线程补发积压事件。
+ * 落后超过缓冲区容量的订阅方收到reset事件后断开，由客户端重新拉取全量数据。
+ * 写响应由独立的写线程执行，分发线程最多等待 send-timeout：客户端停止读取、TCP缓冲区写满时该订阅方被断开，
+ * 不会占住分发线程拖慢其他订阅方；卡住的写线程在Tomcat写超时后释放。
+ * 事件ID为“启动标识-序号”，客户端断线重连时通过Last-Event-ID续传
+ */
+@Component
+public class CustomerChangeFeedImpl implements CustomerChangeFeed, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerChangeFeedImpl.class);
+
+    private static final String RESET_EVENT = "reset";
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final ObjectMapper objectMapper;
+    private final int capacity;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long sendTimeoutMillis;
+
+    private final AtomicReferenceArray<FeedEvent> ring;
+
+    /**
+     * 最后一个已写入缓冲区的序号；写入由append的同步保证串行，读取方先读该值再读槽位
+     */
+    private volatile long published;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final ThreadPoolExecutor dispatcher;
+
+    /**
+     * 执行阻塞的响应写入；正常情况下活动线程数不超过分发线程数，卡住的写入各占一个线程直到连接超时
+     */
+    private final ThreadPoolExecutor writer;
+
+    private final Counter droppedSubscribers;
+
+    private final Counter stalledSubscribers;
+
+    @Autowired
+    public CustomerChangeFeedImpl(ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${customer.feed.buffer-size:1024}") int capacity,
+                                  @Value("${customer.feed.max-subscribers:10000}") int maxSubscribers,
+                                  @Value("${customer.feed.timeout:30m}") Duration timeout,
+                                  @Value("${customer.feed.dispatcher-threads:2}") int dispatcherThreads,
+                                  @Value("${customer.feed.send-timeout:5s}") Duration sendTimeout) {
+        this.objectMapper = objectMapper;
+        this.capacity = capacity;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutMillis = sendTimeout.toMillis();
+        this.ring = new AtomicReferenceArray<>(capacity);
+
+        // 每个订阅方同一时刻最多有一个待执行的分发任务，队列长度不超过订阅数
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(dispatcherThreads, dispatcherThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "customer-feed-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        AtomicInteger writerIndex = new AtomicInteger();
+        this.writer = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "customer-feed-writer-" + writerIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("customer.feed.subscribers", subscribers, Set::size)
+                .register(meterRegistry);
+        Gauge.builder("customer.feed.dispatch.queue.depth", dispatcher, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("customer.feed.writers.active", writer, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("customer.feed.subscribers.dropped")
+                .description("Subscribers disconnected because they fell behind the ring buffer")
+                .register(meterRegistry);
+        this.stalledSubscribers = Counter.builder("customer.feed.subscribers.stalled")
+                .description("Subscribers disconnected because a write did not finish within the send timeout")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        Customer customer = event.getCustomer();
+        String type = event.getType().name().toLowerCase(Locale.ROOT);
+        Customer payload = null;
+        if (event.getType() != CustomerChangedEvent.Type.DELETED) {
+            payload = customer.toBuilder().build();
+            // 更新事件中保存后的实体可能没有创建时间，取变更前快照中的值
+            if (payload.getCreatedTime() == null && event.getPrevious() != null) {
+                payload.setCreatedTime(event.getPrevious().getCreatedTime());
+            }
+        }
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(
+                    new CustomerChangeNotification(type, customer.getId(), payload, LocalDateTime.now()));
+        } catch (JsonProcessingException e) {
+            logger.warn("Failed to serialize customer change event for id {}", customer.getId(), e);
+            return;
+        }
+        append(type, data);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.signal();
+        }
+    }
+
+    private synchronized void append(String name, String data) {
+        long sequence = published + 1;
+        ring.set(slot(sequence), new FeedEvent(sequence, name, data));
+        published = sequence;
+    }
+
+    @Override
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        long current = published;
+        long resumeFrom = resumePosition(lastEventId, current);
+        Subscriber subscriber = new Subscriber(emitter, resumeFrom >= 0 ? resumeFrom : current, resumeFrom < 0);
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // 订阅前后新写入的事件由首次分发补齐
+        subscriber.signal();
+        return emitter;
+    }
+
+    /**
+     * 解析续传位置：未携带时为当前位置；不是本进程发出的ID、或已被缓冲区覆盖时返回-1，表示需要reset
+     */
+    private long resumePosition(String lastEventId, long current) {
+        if (lastEventId == null || lastEventId.trim().isEmpty()) {
+            return current;
+        }
+        String value = lastEventId.trim();
+        int separator = value.lastIndexOf('-');
+        if (separator <= 0 || !epoch.equals(value.substring(0, separator))) {
+            return -1;
+        }
+        long sequence;
+        try {
+            sequence = Long.parseLong(value.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        long oldest = Math.max(1, current - capacity + 1);
+        if (sequence > current || sequence + 1 < oldest) {
+            return -1;
+        }
+        return sequence;
+    }
+
+    /**
+     * 定期向所有订阅方发送SSE注释行，防止代理关闭空闲连接，同时及时发现已断开的客户端
+     */
+    @Scheduled(fixedDelayString = "${customer.feed.heartbeat-interval-ms:20000}",
+               initialDelayString = "${customer.feed.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue.set(true);
+            subscriber.signal();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        dispatcher.shutdownNow();
+        writer.shutdownNow();
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    private static class SendTimeoutException extends IOException {
+
+        SendTimeoutException() {
+            super("Customer change event was not written within the send timeout");
+        }
+    }
+
+    private static class FeedEvent {
+
+        private final long sequence;
+
+        private final String name;
+
+        private final String data;
+
+        FeedEvent(long sequence, String name, String data) {
+            this.sequence = sequence;
+            this.name = name;
+            this.data = data;
+        }
+    }
+
+    private class Subscriber {
+
+        private final SseEmitter emitter;
+
+        /**
+         * 已发送的最后一个序号，只在分发任务内读写；同一订阅方的分发任务不会并发执行
+         */
+        private long cursor;
+
+        private boolean resetPending;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, long cursor, boolean resetPending) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.resetPending = resetPending;
+        }
+
+        void signal() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    if (resetPending) {
+                        resetPending = false;
+                        send(SseEmitter.event().id(eventId(cursor)).name(RESET_EVENT).data("{}"));
+                    }
+                    long target = published;
+                    boolean sent = false;
+                    while (cursor < target) {
+                        long next = cursor + 1;
+                        FeedEvent event = ring.get(slot(next));
+                        if (event == null || event.sequence != next) {
+                            // 已被写入方覆盖：通知客户端重新拉取后断开
+                            droppedSubscribers.increment();
+                            send(SseEmitter.event().id(eventId(published)).name(RESET_EVENT).data("{}"));
+                            close();
+                            return;
+                        }
+                        send(SseEmitter.event().id(eventId(next)).name(event.name).data(event.data));
+                        cursor = next;
+                        sent = true;
+                    }
+                    if (heartbeatDue.getAndSet(false) && !sent) {
+                        send(SseEmitter.event().comment("keepalive"));
+                    }
+                    scheduled.set(false);
+                    // 释放标记后再检查一次，避免漏掉期间到达的信号
+                    if (published == cursor && !heartbeatDue.get() || !scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            } catch (SendTimeoutException e) {
+                logger.warn("Customer feed subscriber stalled for more than {} ms, disconnecting", sendTimeoutMillis);
+                stalledSubscribers.increment();
+                subscribers.remove(this);
+                closed = true;
+                scheduled.set(false);
+                // 发送方法与complete同步于emitter，卡住的写入返回前不能在分发线程上结束连接
+                writer.execute(() -> emitter.completeWithError(e));
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开或连接已超时完成
+                logger.debug("Customer feed subscriber disconnected: {}", e.getMessage());
+                subscribers.remove(this);
+                closed = true;
+                scheduled.set(false);
+            }
+        }
+
+        /**
+         * 在写线程上发送，分发线程最多等待 send-timeout
+         */
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            Future<?> write = writer.submit(() -> {
+                emitter.send(event);
+                return null;
+            });
+            try {
+                write.get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new SendTimeoutException();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while sending customer change event", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+            emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.customer.service.impl;
+
+import com.example.customer.dto.CustomerRevision;
+import com.example.customer.event.CustomerChangedEvent;
+import com.example.customer.repository.CustomerRepository;
+import com.example.customer.repository.CustomerTombstoneRepository;
+import com.example.customer.repository.ShardedCustomerRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户表的全局变更版本，作为列表、筛选页面的ETag
+ * 由数据库中的共享状态计算：客户行数、版本号之和、ID之和、删除记录的最大ID（分片模式无删除记录，取各分片之和）。
+ * 更新使版本号之和增加，新增使用未用过的ID，删除减少行数，因此不依赖修改时间的精度（DATETIME只精确到秒），
+ * 同一秒内不同实例的写入也会得到不同的ETag；多个实例对同一份数据给出相同的ETag。
+ * 查询结果缓存 cache-ttl（默认1秒），其他实例的写入最多延迟这么久才反映到ETag；本进程的写入提交后立即失效。
+ * Last-Modified取最近修改/删除时间，各实例时钟需同步：修改时间由写入实例的时钟决定
+ */
+@Component
+public class CustomerChangeTracker {
+
+    private final CustomerRepository customerRepository;
+
+    private final CustomerTombstoneRepository tombstoneRepository;
+
+    private final ShardedCustomerRepository shardedRepository;
+
+    private final long ttlNanos;
+
+    /**
+     * 本进程的变更次数；查询期间发生变更时不缓存查询结果
+     */
+    private final AtomicLong changes = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public CustomerChangeTracker(CustomerRepository customerRepository,
+                                 CustomerTombstoneRepository tombstoneRepository,
+                                 ObjectProvider<ShardedCustomerRepository> shardedRepository,
+                                 @Value("${customer.list-revision.cache-ttl:1s}") Duration cacheTtl) {
+        this.customerRepository = customerRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.shardedRepository = shardedRepository.getIfAvailable();
+        this.ttlNanos = cacheTtl.toNanos();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        changes.incrementAndGet();
+        snapshot = null;
+    }
+
+    /**
+     * 须在查询数据之前取值：查询期间发生的变更会推进版本，下一次请求自然不再命中
+     */
+    public CustomerRevision current() {
+        Snapshot cached = snapshot;
+        long now = System.nanoTime();
+        if (cached != null && now - cached.loadedAt < ttlNanos) {
+            return cached.revision;
+        }
+        long generation = changes.get();
+        CustomerRevision revision = load();
+        if (changes.get() == generation) {
+            snapshot = new Snapshot(revision, now);
+        }
+        return revision;
+    }
+
+    private CustomerRevision load() {
+        Object[] customers = shardedRepository != null
+                ? shardedRepository.findChangeMarker()
+                : first(customerRepository.findChangeMarker(), 4);
+        Object[] tombstones = shardedRepository != null
+                ? new Object[]{null, null}
+                : first(tombstoneRepository.findChangeMarker(), 2);
+
+        long count = toLong(customers[0]);
+        long versionSum = toLong(customers[1]);
+        long idSum = toLong(customers[2]);
+        long lastUpdated = toMillis((LocalDateTime) customers[3]);
+        long lastTombstone = toLong(tombstones[0]);
+        long lastDeleted = toMillis((LocalDateTime) tombstones[1]);
+
+        String etag = "l" + Long.toString(count, 36) + "-" + Long.toString(versionSum, 36)
+                + "-" + Long.toString(idSum, 36) + "-" + Long.toString(lastTombstone, 36);
+        return new CustomerRevision(etag, Math.max(lastUpdated, lastDeleted));
+    }
+
+    private static Object[] first(List<Object[]> rows, int columns) {
+        return rows.isEmpty() ? new Object[columns] : rows.get(0);
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1L;
+    }
+
+    private static final class Snapshot {
+
+        final CustomerRevision revision;
+
+        final long loadedAt;
+
+        Snapshot(CustomerRevision revision, long loadedAt) {
+            this.revision = revision;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
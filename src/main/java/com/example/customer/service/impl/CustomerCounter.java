@@ -0,0 +1,80 @@
+package com.example.customer.service.impl;
+
+import com.example.customer.event.CustomerChangedEvent;
+import com.example.customer.repository.CustomerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内存维护的客户总数
+ * 监听客户变更事件在事务提交后增减，并定期与数据库COUNT(*)校准，
+ * 避免每次列表请求都做一次全表计数。
+ * 总数 = 校准基数 + 本进程的累计增减；校准时基数取 COUNT结果 - 查询开始时的累计增减，
+ * 查询期间本进程的写入照常计入，不必放弃结果，其他实例的写入造成的偏差每轮都能纠正
+ */
+@Component
+public class CustomerCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerCounter.class);
+
+    private static final long UNINITIALIZED = Long.MIN_VALUE;
+
+    private final CustomerRepository customerRepository;
+
+    /**
+     * 本进程提交的新增减去删除的累计值，只增减不重置
+     */
+    private final AtomicLong localChanges = new AtomicLong();
+
+    private volatile long base = UNINITIALIZED;
+
+    @Autowired
+    public CustomerCounter(CustomerRepository customerRepository) {
+        this.customerRepository = customerRepository;
+    }
+
+    public long get() {
+        if (base == UNINITIALIZED) {
+            reconcile();
+        }
+        return Math.max(0, base + localChanges.get());
+    }
+
+    public void increment() {
+        localChanges.incrementAndGet();
+    }
+
+    public void decrement() {
+        localChanges.decrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        if (event.getType() == CustomerChangedEvent.Type.CREATED) {
+            increment();
+        } else if (event.getType() == CustomerChangedEvent.Type.DELETED) {
+            decrement();
+        }
+    }
+
+    /**
+     * 与数据库校准；COUNT期间提交的本进程写入可能已计入结果，由此产生的误差在下一轮纠正
+     */
+    @Scheduled(fixedDelayString = "${customer.counter.reconcile-interval-ms:60000}",
+               initialDelayString = "${customer.counter.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        long changesBefore = localChanges.get();
+        long actual = customerRepository.count();
+        long previous = base;
+        base = actual - changesBefore;
+        if (previous != UNINITIALIZED && previous + changesBefore != actual) {
+            logger.info("Customer count drift corrected: {} -> {}", previous + changesBefore, actual);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.customer.service.impl;
+
+import com.example.customer.entity.Customer;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+
+/**
+ * 为JDBC批量插入的客户预先分配ID，与Hibernate插入共用同一个号段生成器，
+ * 插入后不必再按手机号查回自增主键
+ */
+@Component
+public class CustomerIdAllocator {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 须在事务内调用；号段用完时生成器在独立事务中取下一段
+     */
+    public void assignIds(Collection<Customer> customers) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = session.getFactory().getMetamodel()
+                .entityPersister(Customer.class)
+                .getIdentifierGenerator();
+        for (Customer customer : customers) {
+            customer.setId((Long) generator.generate(session, customer));
+        }
+    }
+}
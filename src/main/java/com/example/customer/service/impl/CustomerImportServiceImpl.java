@@ -0,0 +1,344 @@
+package com.example.customer.service.impl;
+
+import com.example.customer.dto.ImportReport;
+import com.example.customer.entity.Customer;
+import com.example.customer.entity.Gender;
+import com.example.customer.event.CustomerChangedEvent;
+import com.example.customer.exception.InvalidCustomerDataException;
+import com.example.customer.repository.CustomerRepository;
+import com.example.customer.service.CustomerImportService;
+import com.example.customer.util.CsvLineParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 客户批量导入
+ * 逐行读取请求体，按块校验、批量查重并用JDBC批量插入，每块一个事务；
+ * 内存占用只与块大小有关，与文件大小无关
+ */
+@Service
+public class CustomerImportServiceImpl implements CustomerImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerImportServiceImpl.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO customers (name, phone, email, address, age, gender, created_time, updated_time, id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final CustomerRepository customerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CustomerSecondLevelCache secondLevelCache;
+    private final CustomerIdAllocator idAllocator;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    @Autowired
+    public CustomerImportServiceImpl(CustomerRepository customerRepository,
+                                     JdbcTemplate jdbcTemplate,
+                                     TransactionTemplate transactionTemplate,
+                                     Validator validator,
+                                     ObjectMapper objectMapper,
+                                     ApplicationEventPublisher eventPublisher,
+                                     CustomerSecondLevelCache secondLevelCache,
+                                     CustomerIdAllocator idAllocator,
+                                     @Value("${customer.import.batch-size:1000}") int batchSize,
+                                     @Value("${customer.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.customerRepository = customerRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.secondLevelCache = secondLevelCache;
+        this.idAllocator = idAllocator;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Override
+    public ImportReport importCsv(InputStream input) throws IOException {
+        ImportSession session = new ImportSession();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                return session.finish();
+            }
+            Map<String, Integer> columns = parseHeader(headerLine);
+            long lineNumber = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    session.accept(lineNumber, fromCsv(CsvLineParser.parse(line), columns));
+                } catch (IllegalArgumentException e) {
+                    session.reject(lineNumber, null, "解析失败: " + e.getMessage());
+                }
+            }
+        }
+        return session.finish();
+    }
+
+    @Override
+    public ImportReport importNdjson(InputStream input) throws IOException {
+        ImportSession session = new ImportSession();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    Customer customer = objectMapper.readValue(line, Customer.class);
+                    customer.setId(null);
+                    session.accept(lineNumber, customer);
+                } catch (JsonProcessingException e) {
+                    session.reject(lineNumber, null, "解析失败: " + e.getOriginalMessage());
+                }
+            }
+        }
+        return session.finish();
+    }
+
+    private Map<String, Integer> parseHeader(String headerLine) {
+        // 去掉UTF-8 BOM
+        if (headerLine.startsWith("\uFEFF")) {
+            headerLine = headerLine.substring(1);
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = CsvLineParser.parse(headerLine);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("phone")) {
+            throw new InvalidCustomerDataException("CSV表头必须包含name和phone列");
+        }
+        return columns;
+    }
+
+    private static Customer fromCsv(List<String> fields, Map<String, Integer> columns) {
+        Customer customer = new Customer();
+        customer.setName(field(fields, columns, "name"));
+        customer.setPhone(field(fields, columns, "phone"));
+        customer.setEmail(field(fields, columns, "email"));
+        customer.setAddress(field(fields, columns, "address"));
+        String age = field(fields, columns, "age");
+        if (age != null) {
+            try {
+                customer.setAge(Integer.valueOf(age));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("年龄不是有效数字: " + age);
+            }
+        }
+        String gender = field(fields, columns, "gender");
+        if (gender != null) {
+            customer.setGender(parseGender(gender));
+        }
+        return customer;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Gender parseGender(String value) {
+        for (Gender gender : Gender.values()) {
+            if (gender.name().equalsIgnoreCase(value) || gender.getDisplayName().equals(value)) {
+                return gender;
+            }
+        }
+        throw new IllegalArgumentException("无效的性别: " + value);
+    }
+
+    /**
+     * 一次导入的状态：当前待写入块与结果报告
+     */
+    private class ImportSession {
+
+        private final long startMillis = System.currentTimeMillis();
+
+        private final ImportReport report = new ImportReport(maxReportedErrors);
+
+        private final List<PendingRow> pending = new ArrayList<>(batchSize);
+
+        void accept(long line, Customer customer) {
+            report.rowRead();
+            Set<ConstraintViolation<Customer>> violations = validator.validate(customer);
+            if (!violations.isEmpty()) {
+                String message = violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", "));
+                report.rejected(line, customer.getPhone(), message);
+                return;
+            }
+            pending.add(new PendingRow(line, customer));
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String phone, String message) {
+            report.rowRead();
+            report.rejected(line, phone, message);
+        }
+
+        ImportReport finish() {
+            flush();
+            report.finish(startMillis);
+            logger.info("Customer import finished: {} rows, {} imported, {} failed in {} ms",
+                    report.getTotalRows(), report.getImported(), report.getFailed(), report.getElapsedMillis());
+            return report;
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<PendingRow> chunk = new ArrayList<>(pending);
+            pending.clear();
+
+            // 块内查重
+            Set<String> seen = new HashSet<>();
+            List<PendingRow> unique = new ArrayList<>(chunk.size());
+            for (PendingRow row : chunk) {
+                if (seen.add(row.customer.getPhone())) {
+                    unique.add(row);
+                } else {
+                    report.rejected(row.line, row.customer.getPhone(), "手机号在导入文件中重复");
+                }
+            }
+
+            try {
+                write(unique);
+            } catch (DuplicateKeyException e) {
+                // 与并发写入冲突，整块回滚后逐行重试以定位冲突行
+                logger.warn("Duplicate phone detected during batch insert, retrying {} rows individually", unique.size());
+                for (PendingRow row : unique) {
+                    try {
+                        write(Collections.singletonList(row));
+                    } catch (DuplicateKeyException ex) {
+                        rejectDuplicate(row);
+                    }
+                }
+            }
+        }
+
+        private void write(List<PendingRow> rows) {
+            List<PendingRow> duplicates = new ArrayList<>();
+            Integer inserted = transactionTemplate.execute(status -> insertChunk(rows, duplicates));
+            report.imported(inserted != null ? inserted : 0);
+            duplicates.forEach(this::rejectDuplicate);
+        }
+
+        private void rejectDuplicate(PendingRow row) {
+            report.rejected(row.line, row.customer.getPhone(), "手机号已存在: " + row.customer.getPhone());
+        }
+
+        /**
+         * 在事务内：一次查询完成数据库查重，预先分配ID后批量插入，并发布变更事件
+         */
+        private int insertChunk(List<PendingRow> rows, List<PendingRow> duplicates) {
+            Set<String> existing = new HashSet<>(customerRepository.findExistingPhones(
+                    rows.stream().map(row -> row.customer.getPhone()).collect(Collectors.toList())));
+
+            List<Customer> toInsert = new ArrayList<>(rows.size());
+            for (PendingRow row : rows) {
+                if (existing.contains(row.customer.getPhone())) {
+                    duplicates.add(row);
+                } else {
+                    toInsert.add(row.customer);
+                }
+            }
+            if (toInsert.isEmpty()) {
+                return 0;
+            }
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            idAllocator.assignIds(toInsert);
+            jdbcTemplate.batchUpdate(INSERT_SQL, toInsert, toInsert.size(),
+                    (PreparedStatement ps, Customer customer) -> bind(ps, customer, now));
+            secondLevelCache.evictAfterCommit(Collections.emptyList());
+
+            for (Customer customer : toInsert) {
+                customer.setCreatedTime(now.toLocalDateTime());
+                customer.setUpdatedTime(now.toLocalDateTime());
+                customer.setVersion(0L);
+                eventPublisher.publishEvent(CustomerChangedEvent.created(customer));
+            }
+            return toInsert.size();
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Customer customer, Timestamp now) throws SQLException {
+        ps.setString(1, customer.getName());
+        ps.setString(2, customer.getPhone());
+        ps.setString(3, customer.getEmail());
+        ps.setString(4, customer.getAddress());
+        if (customer.getAge() != null) {
+            ps.setInt(5, customer.getAge());
+        } else {
+            ps.setNull(5, Types.INTEGER);
+        }
+        ps.setString(6, customer.getGender() != null ? customer.getGender().name() : null);
+        ps.setTimestamp(7, now);
+        ps.setTimestamp(8, now);
+        ps.setLong(9, customer.getId());
+    }
+
+    private static class PendingRow {
+
+        private final long line;
+
+        private final Customer customer;
+
+        PendingRow(long line, Customer customer) {
+            this.line = line;
+            this.customer = customer;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.customer.service.impl;
+
+import com.example.customer.entity.Customer;
+import com.example.customer.event.CustomerChangedEvent;
+import com.example.customer.repository.CustomerRepository;
+import com.example.customer.util.LongBloomFilter;
+import com.example.customer.util.LongOpenHashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 已存在手机号的内存集合，用于写入前的唯一性预检查
+ * 11位手机号以long保存在开放寻址集合中，前面加一层布隆过滤器；
+ * 判定"一定不存在"时可跳过数据库查重。集合可能滞后于其他实例的写入，
+ * 因此唯一性最终仍由数据库 phone 唯一约束保证
+ */
+@Component
+public class CustomerPhoneIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerPhoneIndex.class);
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final CustomerRepository customerRepository;
+
+    private final boolean enabled;
+
+    private final int expectedSize;
+
+    private final int loadBatchSize;
+
+    private volatile Phones current;
+
+    private volatile Phones building;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    @Autowired
+    public CustomerPhoneIndex(CustomerRepository customerRepository,
+                              @Value("${customer.phone-index.enabled:true}") boolean enabled,
+                              @Value("${customer.phone-index.expected-size:1000000}") int expectedSize,
+                              @Value("${customer.phone-index.load-batch-size:10000}") int loadBatchSize) {
+        this.customerRepository = customerRepository;
+        this.enabled = enabled;
+        this.expectedSize = expectedSize;
+        this.loadBatchSize = loadBatchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread loader = new Thread(this::rebuild, "customer-phone-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * 全量重建；布隆过滤器不支持删除，定期重建以清除已删除手机号带来的误判
+     */
+    @Scheduled(cron = "${customer.phone-index.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            long total = customerRepository.count();
+            // 集合按负载因子自行留出空位并在需要时扩容，这里只为重建后到下次重建间的新增留少量余量
+            Phones fresh = new Phones((int) Math.max(expectedSize, Math.min(Integer.MAX_VALUE / 4, total + total / 8)));
+            building = fresh;
+            long lastId = 0;
+            List<Object[]> rows;
+            do {
+                rows = customerRepository.findPhonesAfter(lastId, PageRequest.of(0, loadBatchSize));
+                for (Object[] row : rows) {
+                    fresh.add((String) row[1]);
+                    lastId = (Long) row[0];
+                }
+            } while (rows.size() == loadBatchSize);
+            current = fresh;
+            logger.info("Customer phone index built: {} phones in {} ms",
+                    fresh.set.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            logger.error("Failed to build customer phone index", e);
+        } finally {
+            building = null;
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * @return false表示手机号一定不存在（可跳过数据库查重）；true表示可能存在或无法判断
+     */
+    public boolean mightExist(String phone) {
+        Phones phones = current;
+        long key = toKey(phone);
+        if (phones == null || key <= 0) {
+            return true;
+        }
+        return phones.bloom.mightContain(key) && phones.set.contains(key);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        apply(current, event);
+        apply(building, event);
+    }
+
+    private static void apply(Phones phones, CustomerChangedEvent event) {
+        if (phones == null) {
+            return;
+        }
+        Customer customer = event.getCustomer();
+        switch (event.getType()) {
+            case CREATED:
+                phones.add(customer.getPhone());
+                break;
+            case UPDATED:
+                Customer previous = event.getPrevious();
+                if (previous != null && !previous.getPhone().equals(customer.getPhone())) {
+                    phones.remove(previous.getPhone());
+                }
+                phones.add(customer.getPhone());
+                break;
+            case DELETED:
+                phones.remove(customer.getPhone());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 手机号转为long（前置1以保留前导0）；非纯数字或超长时返回-1，表示无法使用内存集合
+     */
+    private static long toKey(String phone) {
+        if (phone == null || phone.isEmpty() || phone.length() > 18) {
+            return -1;
+        }
+        long key = 1;
+        for (int i = 0; i < phone.length(); i++) {
+            char ch = phone.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return -1;
+            }
+            key = key * 10 + (ch - '0');
+        }
+        return key;
+    }
+
+    private static class Phones {
+
+        private final LongBloomFilter bloom;
+
+        private final LongOpenHashSet set;
+
+        Phones(int capacity) {
+            this.bloom = new LongBloomFilter(capacity, FALSE_POSITIVE_RATE);
+            this.set = new LongOpenHashSet(capacity);
+        }
+
+        void add(String phone) {
+            long key = toKey(phone);
+            if (key > 0) {
+                bloom.put(key);
+                set.add(key);
+            }
+        }
+
+        void remove(String phone) {
+            long key = toKey(phone);
+            if (key > 0) {
+                set.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.customer.service.impl;
+
+import com.example.customer.entity.Customer;
+import com.example.customer.event.CustomerChangedEvent;
+import com.example.customer.repository.CustomerRepository;
+import com.example.customer.util.IntPostingList;
+import com.example.customer.util.NGramIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * 客户姓名/手机号/邮箱的内存n-gram索引
+ * LIKE '%x%' 无法使用B树索引，这里先用倒排列表把子串过滤条件缩小为少量候选ID，
+ * 再交给数据库按主键取数并复核过滤条件，因此索引只需保证不漏（可以有多余候选）。
+ * 为此索引和查询都按比数据库排序规则（utf8mb4_unicode_ci）更宽松的方式规范化：兼容分解（全角转半角）、去掉重音、转小写。
+ * 姓名索引1~3字的gram，支持中文单字、双字查询；手机号和邮箱只索引三元组。
+ * 本进程的写入由变更事件即时更新；其他实例的写入由定时任务按 (updated_time, id) 补录，
+ * 每次从上次开始时间减去 refresh-lag 处重读，覆盖晚提交的事务；补录只增加gram，多余的gram在全量重建时清理。
+ * 启动后异步加载，加载完成前、出现超出int范围的ID及查询条件选择性不足时返回null，由调用方回退到数据库查询
+ */
+@Component
+public class CustomerSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSearchIndex.class);
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final CustomerRepository customerRepository;
+
+    private final boolean enabled;
+
+    private final int maxCandidates;
+
+    private final int loadBatchSize;
+
+    private final Duration refreshLag;
+
+    /**
+     * 对外提供查询的索引；首次加载完成前为null
+     */
+    private volatile Indexes current;
+
+    /**
+     * 正在重建的索引；重建期间的写入同时应用到current和building
+     */
+    private volatile Indexes building;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    /**
+     * 下一次补录从该时间减去 refresh-lag 处开始读取；首次加载完成前为null
+     */
+    private volatile LocalDateTime refreshedFrom;
+
+    @Autowired
+    public CustomerSearchIndex(CustomerRepository customerRepository,
+                               @Value("${customer.search-index.enabled:true}") boolean enabled,
+                               @Value("${customer.search-index.max-candidates:1000}") int maxCandidates,
+                               @Value("${customer.search-index.load-batch-size:10000}") int loadBatchSize,
+                               @Value("${customer.search-index.refresh-lag:5s}") Duration refreshLag) {
+        this.customerRepository = customerRepository;
+        this.enabled = enabled;
+        this.maxCandidates = maxCandidates;
+        this.loadBatchSize = loadBatchSize;
+        this.refreshLag = refreshLag;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread loader = new Thread(this::rebuild, "customer-search-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * 全量重建，清理并发更新可能遗留的多余gram
+     */
+    @Scheduled(cron = "${customer.search-index.rebuild-cron:0 0 3 * * *}")
+    public void rebuild() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        LocalDateTime startTime = LocalDateTime.now();
+        try {
+            Indexes fresh = new Indexes();
+            building = fresh;
+            long lastId = 0;
+            int loaded = 0;
+            List<Object[]> rows;
+            do {
+                rows = customerRepository.findSearchFieldsAfter(lastId, PageRequest.of(0, loadBatchSize));
+                for (Object[] row : rows) {
+                    Long id = (Long) row[0];
+                    if (id > Integer.MAX_VALUE) {
+                        disable(id);
+                        return;
+                    }
+                    fresh.add(id.intValue(), (String) row[1], (String) row[2], (String) row[3]);
+                    lastId = id;
+                }
+                loaded += rows.size();
+            } while (rows.size() == loadBatchSize);
+            current = fresh;
+            // 加载期间其他实例的写入由下一次补录处理
+            refreshedFrom = startTime;
+            logger.info("Customer search index built: {} customers, {} name grams in {} ms",
+                    loaded, fresh.name.gramCount(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            logger.error("Failed to build customer search index", e);
+        } finally {
+            building = null;
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 补录其他实例的新增和修改；删除无需处理，多余的候选ID由数据库复核排除
+     */
+    @Scheduled(fixedDelayString = "${customer.search-index.refresh-interval-ms:5000}",
+               initialDelayString = "${customer.search-index.refresh-interval-ms:5000}")
+    public void refresh() {
+        LocalDateTime from = refreshedFrom;
+        if (!enabled || from == null || current == null || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        LocalDateTime startTime = LocalDateTime.now();
+        try {
+            LocalDateTime since = from.minus(refreshLag);
+            long lastId = 0;
+            List<Object[]> rows;
+            do {
+                rows = customerRepository.findSearchFieldsChangedSince(since, lastId, PageRequest.of(0, loadBatchSize));
+                Indexes indexes = current;
+                for (Object[] row : rows) {
+                    Long id = (Long) row[0];
+                    if (id > Integer.MAX_VALUE) {
+                        disable(id);
+                        return;
+                    }
+                    if (indexes != null) {
+                        indexes.add(id.intValue(), (String) row[1], (String) row[2], (String) row[3]);
+                    }
+                    since = (LocalDateTime) row[4];
+                    lastId = id;
+                }
+            } while (rows.size() == loadBatchSize);
+            refreshedFrom = startTime;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh customer search index: {}", e.getMessage());
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    /**
+     * 计算满足过滤条件的候选客户ID（升序）
+     *
+     * @return 候选ID列表；索引不可用、条件无法走索引或候选数超过上限时返回null
+     */
+    public List<Long> findCandidates(String name, String phone, String email) {
+        Indexes indexes = current;
+        if (indexes == null) {
+            return null;
+        }
+        List<IntPostingList> lists = new ArrayList<>();
+        collect(lists, indexes.name, normalize(name));
+        collect(lists, indexes.phone, normalize(phone));
+        collect(lists, indexes.email, normalize(email));
+        if (lists.isEmpty()) {
+            return null;
+        }
+
+        lists.sort(Comparator.comparingInt(IntPostingList::size));
+        IntPostingList smallest = lists.get(0);
+        if (smallest.size() > maxCandidates) {
+            return null;
+        }
+
+        List<Long> candidates = new ArrayList<>();
+        for (int id : smallest.toArray()) {
+            boolean matched = true;
+            for (int i = 1; i < lists.size() && matched; i++) {
+                matched = lists.get(i).contains(id);
+            }
+            if (matched) {
+                candidates.add((long) id);
+            }
+        }
+        return candidates;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Customer customer = event.getCustomer();
+        Customer previous = event.getPrevious();
+        if (customer.getId() == null) {
+            return;
+        }
+        if (customer.getId() > Integer.MAX_VALUE) {
+            disable(customer.getId());
+            return;
+        }
+        apply(current, event.getType(), customer, previous);
+        apply(building, event.getType(), customer, previous);
+    }
+
+    /**
+     * 倒排列表以int保存ID，出现超出范围的ID后索引不再完整，停止使用并回退到数据库查询
+     */
+    private void disable(Long id) {
+        if (current != null) {
+            logger.warn("Customer id {} exceeds int range, search index disabled", id);
+        }
+        current = null;
+        refreshedFrom = null;
+    }
+
+    private static void apply(Indexes indexes, CustomerChangedEvent.Type type, Customer customer, Customer previous) {
+        if (indexes == null) {
+            return;
+        }
+        int id = customer.getId().intValue();
+        switch (type) {
+            case CREATED:
+                indexes.add(id, customer.getName(), customer.getPhone(), customer.getEmail());
+                break;
+            case UPDATED:
+                indexes.remove(id, previous.getName(), previous.getPhone(), previous.getEmail());
+                indexes.add(id, customer.getName(), customer.getPhone(), customer.getEmail());
+                break;
+            case DELETED:
+                indexes.remove(id, customer.getName(), customer.getPhone(), customer.getEmail());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void collect(List<IntPostingList> lists, NGramIndex index, String query) {
+        // LIKE中的通配符与子串语义不同，这类查询不走索引
+        if (query == null || query.indexOf('%') >= 0 || query.indexOf('_') >= 0) {
+            return;
+        }
+        List<IntPostingList> postings = index.postingsFor(query);
+        if (postings != null) {
+            lists.addAll(postings);
+        }
+    }
+
+    /**
+     * 不比数据库排序规则更严格：utf8mb4_unicode_ci 不区分大小写、重音和全半角，且ß与ss相等。
+     * 先转小写再分解，转小写产生的组合符号（如İ）一并去掉
+     */
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(value.toLowerCase(Locale.ROOT), Normalizer.Form.NFKD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").replace("ß", "ss");
+    }
+
+    private static class Indexes {
+
+        private final NGramIndex name = new NGramIndex(1, NGramIndex.MAX_GRAM);
+
+        private final NGramIndex phone = new NGramIndex(NGramIndex.MAX_GRAM, NGramIndex.MAX_GRAM);
+
+        private final NGramIndex email = new NGramIndex(NGramIndex.MAX_GRAM, NGramIndex.MAX_GRAM);
+
+        void add(int id, String name, String phone, String email) {
+            this.name.add(id, normalize(name));
+            this.phone.add(id, normalize(phone));
+            this.email.add(id, normalize(email));
+        }
+
+        void remove(int id, String name, String phone, String email) {
+            this.name.remove(id, normalize(name));
+            this.phone.remove(id, normalize(phone));
+            this.email.remove(id, normalize(email));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.customer.service.impl;
+
+import com.example.customer.entity.Customer;
+import com.example.customer.repository.CustomerRepository;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JDBC批量写入绕过了Hibernate，二级缓存中的客户实体和查询缓存中依赖customers表的结果不会自动失效，
+ * 由写入方在事务内登记，提交后统一失效一次
+ */
+@Component
+public class CustomerSecondLevelCache {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public CustomerSecondLevelCache(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * @param changedIds 被更新或删除的客户ID；只有新增时传空集合，此时只失效查询缓存
+     */
+    public void evictAfterCommit(Collection<Long> changedIds) {
+        List<Long> ids = new ArrayList<>(changedIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(ids);
+            }
+        });
+    }
+
+    private void evict(List<Long> ids) {
+        javax.persistence.Cache cache = entityManagerFactory.getCache();
+        for (Long id : ids) {
+            cache.evict(Customer.class, id);
+        }
+        entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                .evictQueryRegion(CustomerRepository.QUERY_CACHE_REGION);
+    }
+}
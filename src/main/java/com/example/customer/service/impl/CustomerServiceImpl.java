@@ -1,29 +1,91 @@
 package com.example.customer.service.impl;
 
+import com.example.customer.config.ReadWriteRoutingDataSource;
+import com.example.customer.dto.CursorPage;
+import com.example.customer.dto.CustomerCursor;
+import com.example.customer.dto.CustomerListItem;
+import com.example.customer.dto.CustomerPatch;
+import com.example.customer.dto.CustomerRevision;
+import com.example.customer.dto.CustomerStatistics;
 import com.example.customer.entity.Customer;
 import com.example.customer.entity.Gender;
+import com.example.customer.event.CustomerChangedEvent;
 import com.example.customer.exception.CustomerNotFoundException;
+import com.example.customer.exception.CustomerVersionConflictException;
 import com.example.customer.exception.DuplicatePhoneException;
+import com.example.customer.exception.InvalidCustomerDataException;
 import com.example.customer.repository.CustomerRepository;
 import com.example.customer.service.CustomerService;
+import com.example.customer.service.CustomerSyncService;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "customer.service", histogram = true)
 @Transactional
+@ConditionalOnProperty(name = "customer.sharding.enabled", havingValue = "false", matchIfMissing = true)
 public class CustomerServiceImpl implements CustomerService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final CustomerRepository customerRepository;
+    private final CustomerCounter customerCounter;
+    private final CustomerSearchIndex customerSearchIndex;
+    private final CustomerCache customerCache;
+    private final CustomerPhoneIndex customerPhoneIndex;
+    private final CustomerStatisticsAggregator customerStatistics;
+    private final CustomerChangeTracker customerChangeTracker;
+    private final CustomerSyncService customerSyncService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
 
     @Autowired
-    public CustomerServiceImpl(CustomerRepository customerRepository) {
+    public CustomerServiceImpl(CustomerRepository customerRepository,
+                               CustomerCounter customerCounter,
+                               CustomerSearchIndex customerSearchIndex,
+                               CustomerCache customerCache,
+                               CustomerPhoneIndex customerPhoneIndex,
+                               CustomerStatisticsAggregator customerStatistics,
+                               CustomerChangeTracker customerChangeTracker,
+                               CustomerSyncService customerSyncService,
+                               ApplicationEventPublisher eventPublisher,
+                               Validator validator) {
         this.customerRepository = customerRepository;
+        this.customerCounter = customerCounter;
+        this.customerSearchIndex = customerSearchIndex;
+        this.customerCache = customerCache;
+        this.customerPhoneIndex = customerPhoneIndex;
+        this.customerStatistics = customerStatistics;
+        this.customerChangeTracker = customerChangeTracker;
+        this.customerSyncService = customerSyncService;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
     }
 
     @Override
@@ -31,7 +93,40 @@ public class CustomerServiceImpl implements CustomerService {
         if (isPhoneExists(customer.getPhone(), null)) {
             throw new DuplicatePhoneException(customer.getPhone());
         }
-        return customerRepository.save(customer);
+        Customer saved = saveAndFlush(customer);
+        eventPublisher.publishEvent(CustomerChangedEvent.created(saved));
+        return saved;
+    }
+
+    @Override
+    public List<Customer> saveCustomers(List<Customer> customers) {
+        if (customers.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<String> phones = new HashSet<>();
+        for (Customer customer : customers) {
+            if (!phones.add(customer.getPhone())) {
+                throw new DuplicatePhoneException(customer.getPhone());
+            }
+        }
+        List<String> existing = customerRepository.findExistingPhones(phones);
+        if (!existing.isEmpty()) {
+            throw new DuplicatePhoneException(existing.get(0));
+        }
+
+        // 逐条saveAndFlush会让每条INSERT单独发送；此处只在最后刷新一次，按 hibernate.jdbc.batch_size 成批执行
+        List<Customer> saved;
+        try {
+            saved = customerRepository.saveAll(customers);
+            customerRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (isPhoneConflict(e)) {
+                throw new DuplicatePhoneException("手机号已存在", e);
+            }
+            throw e;
+        }
+        saved.forEach(customer -> eventPublisher.publishEvent(CustomerChangedEvent.created(customer)));
+        return saved;
     }
 
     @Override
@@ -40,29 +135,100 @@ public class CustomerServiceImpl implements CustomerService {
             throw new CustomerNotFoundException("更新客户时ID不能为空");
         }
 
-        if (isPhoneExists(customer.getPhone(), customer.getId())) {
+        // 先加载到持久化上下文，save时的merge不会再查询一次；同时保留变更前的快照。不经二级缓存，版本号以数据库为准
+        Customer existing = customerRepository.findCurrentById(customer.getId())
+                .orElseThrow(() -> new CustomerNotFoundException(customer.getId()));
+        Customer previous = existing.toBuilder().build();
+
+        // 未携带版本号的旧客户端按当前版本处理（后写覆盖）；携带时必须与当前版本一致
+        if (customer.getVersion() == null) {
+            customer.setVersion(existing.getVersion());
+        } else if (!customer.getVersion().equals(existing.getVersion())) {
+            throw new CustomerVersionConflictException(customer.getId());
+        }
+
+        // 手机号未变更时无需查重
+        if (!previous.getPhone().equals(customer.getPhone())
+                && isPhoneExists(customer.getPhone(), customer.getId())) {
             throw new DuplicatePhoneException(customer.getPhone());
         }
 
-        if (!customerRepository.existsById(customer.getId())) {
-            throw new CustomerNotFoundException(customer.getId());
+        Customer saved = saveAndFlush(customer);
+        eventPublisher.publishEvent(CustomerChangedEvent.updated(previous, saved));
+        return saved;
+    }
+
+    /**
+     * 一次主键查询加一条只含变更列的 UPDATE ... WHERE id = ? AND version = ?；
+     * 读取后被并发修改时UPDATE影响0行，转换为版本冲突
+     */
+    @Override
+    public Customer patchCustomer(Long id, CustomerPatch patch) {
+        if (patch.getVersion() == null) {
+            throw new InvalidCustomerDataException("部分更新必须携带version");
+        }
+        Customer existing = customerRepository.findCurrentById(id)
+                .orElseThrow(() -> new CustomerNotFoundException(id));
+        if (!patch.getVersion().equals(existing.getVersion())) {
+            throw new CustomerVersionConflictException(id);
+        }
+        if (patch.getPresent().isEmpty()) {
+            return existing;
+        }
+        // 先在副本上校验，通过后才修改托管实体
+        Customer previous = existing.toBuilder().build();
+        Customer patched = existing.toBuilder().build();
+        patch.applyTo(patched);
+        Set<ConstraintViolation<Customer>> violations = validator.validate(patched);
+        if (!violations.isEmpty()) {
+            throw new InvalidCustomerDataException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        if (!previous.getPhone().equals(patched.getPhone()) && isPhoneExists(patched.getPhone(), id)) {
+            throw new DuplicatePhoneException(patched.getPhone());
         }
 
-        return customerRepository.save(customer);
+        patch.applyTo(existing);
+        Customer saved = saveAndFlush(existing);
+        eventPublisher.publishEvent(CustomerChangedEvent.updated(previous, saved));
+        return saved;
     }
 
     @Override
     public void deleteCustomer(Long id) {
-        if (!customerRepository.existsById(id)) {
-            throw new CustomerNotFoundException(id);
-        }
-        customerRepository.deleteById(id);
+        Customer existing = customerRepository.findCurrentById(id)
+                .orElseThrow(() -> new CustomerNotFoundException(id));
+        customerRepository.delete(existing);
+        customerSyncService.recordDeletions(Collections.singletonList(existing));
+        eventPublisher.publishEvent(CustomerChangedEvent.deleted(existing));
     }
 
+    /**
+     * 优先读缓存；SUPPORTS不主动开启事务，缓存命中时不会从连接池获取连接
+     */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Customer> findCustomerById(Long id) {
-        return customerRepository.findById(id);
+        return customerCache.findById(id);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<CustomerRevision> findCustomerRevision(Long id) {
+        Customer cached = customerCache.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(new CustomerRevision(cached.getId(), cached.getVersion(), cached.getUpdatedTime()));
+        }
+        // 与缓存加载一致走主库，避免ETag取自从库的旧版本而响应体取自主库
+        return ReadWriteRoutingDataSource.readFromPrimary(() -> customerRepository.findRevisionById(id));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public CustomerRevision getCustomerListRevision() {
+        return customerChangeTracker.current();
     }
 
     @Override
@@ -74,30 +240,149 @@ public class CustomerServiceImpl implements CustomerService {
     @Override
     @Transactional(readOnly = true)
     public Page<Customer> findCustomersWithPagination(Pageable pageable) {
-        return customerRepository.findAll(pageable);
+        // 总数取自内存计数器，只查询当前页
+        Slice<Customer> slice = customerRepository.findCustomerSliceWithFilters(null, null, null, pageable);
+        return new PageImpl<>(slice.getContent(), pageable, customerCounter.get());
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<Customer> findCustomersWithFilters(String name, String phone, String email, Pageable pageable) {
-        return customerRepository.findCustomersWithFilters(
-            name != null && !name.trim().isEmpty() ? name.trim() : null,
-            phone != null && !phone.trim().isEmpty() ? phone.trim() : null,
-            email != null && !email.trim().isEmpty() ? email.trim() : null,
-            pageable
-        );
+        name = trimToNull(name);
+        phone = trimToNull(phone);
+        email = trimToNull(email);
+        if (name == null && phone == null && email == null) {
+            return findCustomersWithPagination(pageable);
+        }
+        List<Long> candidates = customerSearchIndex.findCandidates(name, phone, email);
+        if (candidates == null) {
+            return customerRepository.findCustomersWithFilters(name, phone, email, pageable);
+        }
+        if (candidates.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        return customerRepository.findCustomersWithFiltersAmongIds(candidates, name, phone, email, pageable);
     }
 
     @Override
     @Transactional(readOnly = true)
+    public Slice<Customer> findCustomerSliceWithFilters(String name, String phone, String email, Pageable pageable) {
+        name = trimToNull(name);
+        phone = trimToNull(phone);
+        email = trimToNull(email);
+        List<Long> candidates = customerSearchIndex.findCandidates(name, phone, email);
+        if (candidates == null) {
+            return customerRepository.findCustomerSliceWithFilters(name, phone, email, pageable);
+        }
+        if (candidates.isEmpty()) {
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
+        }
+        return customerRepository.findCustomerSliceWithFiltersAmongIds(candidates, name, phone, email, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Customer> findCustomersByCursor(String name, String phone, String email,
+                                                      String sortBy, String sortDir, String cursor, int size) {
+        CustomerCursor.SortKey sortKey = CustomerCursor.SortKey.of(sortBy);
+        boolean descending = "desc".equalsIgnoreCase(sortDir);
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+
+        CustomerCursor after = cursor != null && !cursor.trim().isEmpty()
+                ? CustomerCursor.decode(cursor.trim(), sortKey, descending)
+                : null;
+
+        // 多取一行用于判断是否还有下一页，避免COUNT查询
+        List<Customer> rows = seek(trimToNull(name), trimToNull(phone), trimToNull(email),
+                sortKey, descending, after, PageRequest.of(0, pageSize + 1));
+
+        boolean hasNext = rows.size() > pageSize;
+        List<Customer> content = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext
+                ? CustomerCursor.after(content.get(content.size() - 1), sortKey, descending).encode()
+                : null;
+
+        return new CursorPage<>(content, pageSize, hasNext, nextCursor,
+                sortKey.getProperty(), descending ? "desc" : "asc");
+    }
+
+    private List<Customer> seek(String name, String phone, String email,
+                                CustomerCursor.SortKey sortKey, boolean descending,
+                                CustomerCursor after, Pageable limit) {
+        Long lastId = after != null ? after.getLastId() : null;
+        switch (sortKey) {
+            case NAME:
+                String lastName = after != null ? after.getLastName() : null;
+                return descending
+                        ? customerRepository.seekByNameDesc(name, phone, email, lastName, lastId, limit)
+                        : customerRepository.seekByNameAsc(name, phone, email, lastName, lastId, limit);
+            case CREATED_TIME:
+                LocalDateTime lastCreatedTime = after != null ? after.getLastCreatedTime() : null;
+                return descending
+                        ? customerRepository.seekByCreatedTimeDesc(name, phone, email, lastCreatedTime, lastId, limit)
+                        : customerRepository.seekByCreatedTimeAsc(name, phone, email, lastCreatedTime, lastId, limit);
+            default:
+                return descending
+                        ? customerRepository.seekByIdDesc(name, phone, email, lastId, limit)
+                        : customerRepository.seekByIdAsc(name, phone, email, lastId, limit);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CustomerListItem> findCustomerListItems(String name, String phone, String email, Pageable pageable) {
+        name = trimToNull(name);
+        phone = trimToNull(phone);
+        email = trimToNull(email);
+        if (name == null && phone == null && email == null) {
+            Slice<CustomerListItem> slice = customerRepository.findListItemSliceWithFilters(null, null, null, pageable);
+            return new PageImpl<>(slice.getContent(), pageable, customerCounter.get());
+        }
+        List<Long> candidates = customerSearchIndex.findCandidates(name, phone, email);
+        if (candidates == null) {
+            return customerRepository.findListItemsWithFilters(name, phone, email, pageable);
+        }
+        if (candidates.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        return customerRepository.findListItemsWithFiltersAmongIds(candidates, name, phone, email, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerListItem> findCustomerListItemsByName(String name) {
+        String query = trimToNull(name);
+        List<Long> candidates = query != null ? customerSearchIndex.findCandidates(query, null, null) : null;
+        if (candidates == null) {
+            return customerRepository.findListItemSliceWithFilters(query, null, null, Pageable.unpaged())
+                    .getContent();
+        }
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return customerRepository.findListItemsWithFiltersAmongIds(candidates, query, null, null, Pageable.unpaged())
+                .getContent();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Customer> findCustomerByPhone(String phone) {
-        return customerRepository.findByPhone(phone);
+        return customerCache.findByPhone(phone);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Customer> findCustomersByName(String name) {
-        return customerRepository.findByNameContainingIgnoreCase(name);
+        String query = trimToNull(name);
+        List<Long> candidates = query != null ? customerSearchIndex.findCandidates(query, null, null) : null;
+        if (candidates == null) {
+            return customerRepository.findByNameContainingIgnoreCase(name);
+        }
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return customerRepository.findCustomersWithFiltersAmongIds(candidates, query, null, null, Pageable.unpaged())
+                .getContent();
     }
 
     @Override
@@ -116,12 +401,66 @@ public class CustomerServiceImpl implements CustomerService {
     @Override
     @Transactional(readOnly = true)
     public boolean isPhoneExists(String phone, Long excludeId) {
+        // 内存集合判定一定不存在时跳过数据库查询
+        if (!customerPhoneIndex.mightExist(phone)) {
+            return false;
+        }
         return customerRepository.countByPhoneAndIdNot(phone, excludeId) > 0;
     }
 
     @Override
     @Transactional(readOnly = true)
     public long getTotalCustomerCount() {
-        return customerRepository.count();
+        return customerCounter.get();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Object> getCacheStatistics() {
+        return customerCache.stats();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public CustomerStatistics getCustomerStatistics(int ageBucketWidth, int days) {
+        return customerStatistics.snapshot(ageBucketWidth, days);
+    }
+
+    /**
+     * 立即刷新以便在本方法内捕获唯一约束冲突（并发写入或预检查滞后时），转为业务异常；
+     * 其他完整性错误（主键冲突、非空约束等）原样抛出
+     */
+    private Customer saveAndFlush(Customer customer) {
+        try {
+            return customerRepository.saveAndFlush(customer);
+        } catch (DataIntegrityViolationException e) {
+            if (isPhoneConflict(e)) {
+                throw new DuplicatePhoneException("手机号已存在: " + customer.getPhone(), e);
+            }
+            throw e;
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new CustomerVersionConflictException(customer.getId(), e);
+        }
+    }
+
+    /**
+     * 唯一约束冲突（SQLState 23505，MySQL错误码1062）且违反的是手机号唯一约束
+     */
+    private static boolean isPhoneConflict(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                SQLException sqlException = (SQLException) cause;
+                boolean uniqueViolation = "23505".equals(sqlException.getSQLState())
+                        || sqlException.getErrorCode() == 1062;
+                String message = sqlException.getMessage();
+                return uniqueViolation && message != null
+                        && message.toLowerCase(Locale.ROOT).contains(Customer.PHONE_CONSTRAINT);
+            }
+        }
+        return false;
+    }
+
+    private static String trimToNull(String value) {
+        return value != null && !value.trim().isEmpty() ? value.trim() : null;
     }
 }
\ No newline at end of file
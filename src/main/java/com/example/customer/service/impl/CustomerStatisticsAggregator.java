@@ -0,0 +1,241 @@
+package com.example.customer.service.impl;
+
+import com.example.customer.dto.CustomerStatistics;
+import com.example.customer.entity.Customer;
+import com.example.customer.entity.Gender;
+import com.example.customer.event.CustomerChangedEvent;
+import com.example.customer.repository.CustomerRepository;
+import com.example.customer.repository.ShardedCustomerRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内存维护的客户统计（性别、年龄、每日新增）
+ * 与 CustomerCounter 相同的思路：监听客户变更事件在事务提交后增减 LongAdder 计数，
+ * 并定期用分组SQL重建校准，统计接口只读取内存，不扫描客户表。
+ * 校准开始前先发布新的计数器组，查询期间提交的写入同时计入当前组和新组，查询结果加上这些增减后整体替换，
+ * 持续写入时校准也不会被跳过，其他实例的写入造成的偏差每轮都能纠正
+ */
+@Component
+public class CustomerStatisticsAggregator {
+
+    /**
+     * 与 Customer.age 的校验范围一致
+     */
+    public static final int MAX_AGE = 150;
+
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private final CustomerRepository customerRepository;
+
+    /**
+     * 分片模式下客户不在主库，改用各分片汇总的分组计数校准
+     */
+    private final ShardedCustomerRepository shardedRepository;
+
+    private final int retentionDays;
+
+    private volatile Aggregates current;
+
+    /**
+     * 正在校准的计数器组；校准期间的写入同时应用到current和building
+     */
+    private volatile Aggregates building;
+
+    @Autowired
+    public CustomerStatisticsAggregator(CustomerRepository customerRepository,
+                                        ObjectProvider<ShardedCustomerRepository> shardedRepository,
+                                        @Value("${customer.statistics.retention-days:90}") int retentionDays) {
+        this.customerRepository = customerRepository;
+        this.shardedRepository = shardedRepository.getIfAvailable();
+        this.retentionDays = retentionDays;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        // 先读building：读到null说明本次提交早于校准查询开始，已包含在查询结果中
+        Aggregates pending = building;
+        Aggregates aggregates = current;
+        apply(pending, event);
+        if (aggregates != pending) {
+            apply(aggregates, event);
+        }
+    }
+
+    private static void apply(Aggregates aggregates, CustomerChangedEvent event) {
+        if (aggregates == null) {
+            return;
+        }
+        Customer customer = event.getCustomer();
+        switch (event.getType()) {
+            case CREATED:
+                aggregates.add(customer.getGender(), customer.getAge(), day(customer), 1);
+                break;
+            case DELETED:
+                aggregates.add(customer.getGender(), customer.getAge(), day(customer), -1);
+                break;
+            case UPDATED:
+                Customer previous = event.getPrevious();
+                if (previous != null) {
+                    // 创建时间不可修改，只调整性别和年龄
+                    aggregates.add(previous.getGender(), previous.getAge(), null, -1);
+                    aggregates.add(customer.getGender(), customer.getAge(), null, 1);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @param ageBucketWidth 年龄直方图的区间宽度（岁）
+     * @param days           返回最近多少天的每日新增，不超过保留天数
+     */
+    public CustomerStatistics snapshot(int ageBucketWidth, int days) {
+        Aggregates aggregates = current;
+        if (aggregates == null) {
+            reconcile();
+            aggregates = current;
+        }
+
+        Map<String, Long> byGender = new LinkedHashMap<>();
+        long total = 0;
+        for (Gender gender : Gender.values()) {
+            long count = aggregates.byGender[gender.ordinal()].sum();
+            byGender.put(gender.name(), count);
+            total += count;
+        }
+        long unknownGender = aggregates.byGender[Gender.values().length].sum();
+        byGender.put(UNKNOWN, unknownGender);
+        total += unknownGender;
+
+        int width = Math.max(1, ageBucketWidth);
+        List<CustomerStatistics.AgeBucket> histogram = new ArrayList<>();
+        for (int from = 0; from <= MAX_AGE; from += width) {
+            int to = Math.min(MAX_AGE, from + width - 1);
+            long count = 0;
+            for (int age = from; age <= to; age++) {
+                count += aggregates.byAge[age].sum();
+            }
+            histogram.add(new CustomerStatistics.AgeBucket(from, to, count));
+        }
+
+        LocalDate since = LocalDate.now().minusDays(Math.max(1, Math.min(days, retentionDays)) - 1L);
+        List<CustomerStatistics.DailyCount> daily = new ArrayList<>();
+        for (Map.Entry<LocalDate, LongAdder> entry : aggregates.createdByDay.tailMap(since, true).entrySet()) {
+            daily.add(new CustomerStatistics.DailyCount(entry.getKey(), entry.getValue().sum()));
+        }
+
+        return new CustomerStatistics(total, byGender, histogram, aggregates.byAge[MAX_AGE + 1].sum(),
+                daily, aggregates.builtAt);
+    }
+
+    /**
+     * 用分组查询重建统计；查询期间提交的写入可能已计入结果，由此产生的误差在下一轮纠正
+     */
+    @Scheduled(fixedDelayString = "${customer.statistics.reconcile-interval-ms:300000}",
+               initialDelayString = "${customer.statistics.reconcile-interval-ms:300000}")
+    public synchronized void reconcile() {
+        Aggregates fresh = new Aggregates(retentionDays);
+        building = fresh;
+        try {
+            load(fresh);
+            current = fresh;
+        } finally {
+            building = null;
+        }
+    }
+
+    private void load(Aggregates fresh) {
+        boolean sharded = shardedRepository != null;
+        for (Object[] row : sharded ? shardedRepository.countGroupByGender() : customerRepository.countGroupByGender()) {
+            fresh.byGender[genderIndex((Gender) row[0])].add((Long) row[1]);
+        }
+        for (Object[] row : sharded ? shardedRepository.countGroupByAge() : customerRepository.countGroupByAge()) {
+            fresh.byAge[ageIndex((Integer) row[0])].add((Long) row[1]);
+        }
+        LocalDate since = LocalDate.now().minusDays(retentionDays - 1L);
+        List<Object[]> perDay = sharded
+                ? shardedRepository.countCreatedPerDaySince(since.atStartOfDay())
+                : customerRepository.countCreatedPerDaySince(since.atStartOfDay());
+        for (Object[] row : perDay) {
+            fresh.dayCounter(toLocalDate(row[0])).add((Long) row[1]);
+        }
+    }
+
+    private static LocalDate day(Customer customer) {
+        return customer.getCreatedTime() != null ? customer.getCreatedTime().toLocalDate() : null;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof Date ? ((Date) value).toLocalDate() : (LocalDate) value;
+    }
+
+    private static int genderIndex(Gender gender) {
+        return gender != null ? gender.ordinal() : Gender.values().length;
+    }
+
+    private static int ageIndex(Integer age) {
+        return age != null && age >= 0 && age <= MAX_AGE ? age : MAX_AGE + 1;
+    }
+
+    /**
+     * 一组计数器；校准时整体替换
+     */
+    private static final class Aggregates {
+
+        /**
+         * 下标为 Gender.ordinal()，最后一个为未填写
+         */
+        final LongAdder[] byGender = newAdders(Gender.values().length + 1);
+
+        /**
+         * 下标为年龄，最后一个为未填写
+         */
+        final LongAdder[] byAge = newAdders(MAX_AGE + 2);
+
+        final ConcurrentSkipListMap<LocalDate, LongAdder> createdByDay = new ConcurrentSkipListMap<>();
+
+        final LocalDateTime builtAt = LocalDateTime.now();
+
+        final LocalDate oldestDay;
+
+        Aggregates(int retentionDays) {
+            this.oldestDay = LocalDate.now().minusDays(retentionDays - 1L);
+        }
+
+        void add(Gender gender, Integer age, LocalDate day, long delta) {
+            byGender[genderIndex(gender)].add(delta);
+            byAge[ageIndex(age)].add(delta);
+            if (day != null && !day.isBefore(oldestDay)) {
+                dayCounter(day).add(delta);
+            }
+        }
+
+        LongAdder dayCounter(LocalDate day) {
+            return createdByDay.computeIfAbsent(day, key -> new LongAdder());
+        }
+
+        private static LongAdder[] newAdders(int size) {
+            LongAdder[] adders = new LongAdder[size];
+            for (int i = 0; i < size; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+    }
+}
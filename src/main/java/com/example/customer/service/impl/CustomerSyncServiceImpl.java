@@ -0,0 +1,146 @@
+package com.example.customer.service.impl;
+
+import com.example.customer.dto.CustomerDelta;
+import com.example.customer.dto.SyncWatermark;
+import com.example.customer.entity.Customer;
+import com.example.customer.entity.CustomerTombstone;
+import com.example.customer.exception.SyncWatermarkExpiredException;
+import com.example.customer.repository.CustomerRepository;
+import com.example.customer.repository.CustomerTombstoneRepository;
+import com.example.customer.service.CustomerSyncService;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 增量同步
+ * 客户变更按 (updated_time, id) 键集读取，删除按删除记录表读取，两者各自推进水位。
+ * 只返回早于“当前时间 - commit-lag”的变更：updated_time在事务提交前取值，
+ * 留出提交延迟后，晚提交的事务不会落在已发出的水位之前
+ */
+@Service
+@Timed(value = "customer.service", histogram = true)
+public class CustomerSyncServiceImpl implements CustomerSyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSyncServiceImpl.class);
+
+    private static final String INSERT_TOMBSTONE_SQL =
+            "INSERT INTO customer_tombstones (customer_id, phone, deleted_time) VALUES (?, ?, ?)";
+
+    private static final int MAX_LIMIT = 5000;
+
+    private final CustomerRepository customerRepository;
+    private final CustomerTombstoneRepository tombstoneRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration commitLag;
+    private final Duration tombstoneRetention;
+
+    @Autowired
+    public CustomerSyncServiceImpl(CustomerRepository customerRepository,
+                                   CustomerTombstoneRepository tombstoneRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   @Value("${customer.sync.commit-lag:5s}") Duration commitLag,
+                                   @Value("${customer.sync.tombstone-retention:30d}") Duration tombstoneRetention) {
+        this.customerRepository = customerRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.commitLag = commitLag;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CustomerDelta getChangesSince(String watermark, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.minus(commitLag);
+
+        SyncWatermark from;
+        if (watermark == null || watermark.trim().isEmpty()) {
+            from = SyncWatermark.initial(until);
+        } else {
+            from = SyncWatermark.decode(watermark.trim());
+            if (from.getDeletedTime().isBefore(now.minus(tombstoneRetention))) {
+                throw new SyncWatermarkExpiredException();
+            }
+        }
+
+        // 多取一行用于判断是否还有剩余
+        List<Customer> changed = new ArrayList<>(customerRepository.findChangedSince(
+                from.getChangedTime(), from.getChangedId(), until, PageRequest.of(0, pageSize + 1)));
+        List<CustomerTombstone> deleted = new ArrayList<>(tombstoneRepository.findDeletedSince(
+                from.getDeletedTime(), from.getDeletedId(), until, PageRequest.of(0, pageSize + 1)));
+        boolean deletionsDrained = deleted.size() <= pageSize;
+        boolean hasMore = changed.size() > pageSize || !deletionsDrained;
+        if (changed.size() > pageSize) {
+            changed = changed.subList(0, pageSize);
+        }
+        if (deleted.size() > pageSize) {
+            deleted = deleted.subList(0, pageSize);
+        }
+
+        LocalDateTime changedTime = from.getChangedTime();
+        long changedId = from.getChangedId();
+        if (!changed.isEmpty()) {
+            Customer last = changed.get(changed.size() - 1);
+            changedTime = last.getUpdatedTime();
+            changedId = last.getId();
+        }
+        LocalDateTime deletedTime = from.getDeletedTime();
+        long deletedId = from.getDeletedId();
+        if (!deleted.isEmpty()) {
+            CustomerTombstone last = deleted.get(deleted.size() - 1);
+            deletedTime = last.getDeletedTime();
+            deletedId = last.getId();
+        }
+        // 删除记录已读完时推进到until：长期没有删除的客户端水位不会过期而被要求全量同步
+        if (deletionsDrained && deletedTime.isBefore(until)) {
+            deletedTime = until;
+            deletedId = 0;
+        }
+        String next = new SyncWatermark(changedTime, changedId, deletedTime, deletedId).encode();
+        return new CustomerDelta(changed, deleted, next, hasMore);
+    }
+
+    @Override
+    @Transactional
+    public void recordDeletions(Collection<Customer> deleted) {
+        if (deleted.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_TOMBSTONE_SQL, deleted, deleted.size(),
+                (PreparedStatement ps, Customer customer) -> {
+                    ps.setLong(1, customer.getId());
+                    ps.setString(2, customer.getPhone());
+                    ps.setTimestamp(3, now);
+                });
+    }
+
+    /**
+     * 清理超过保留期的删除记录；持有更早水位的客户端会收到410，需要重新全量同步
+     */
+    @Scheduled(cron = "${customer.sync.tombstone-purge-cron:0 15 4 * * *}")
+    @Transactional
+    public void purgeTombstones() {
+        int purged = tombstoneRepository.deleteByDeletedTimeBefore(LocalDateTime.now().minus(tombstoneRetention));
+        if (purged > 0) {
+            logger.info("Purged {} customer tombstones older than {}", purged, tombstoneRetention);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.customer.service.impl;
+
+import com.example.customer.dto.CursorPage;
+import com.example.customer.dto.CustomerCursor;
+import com.example.customer.dto.CustomerListItem;
+import com.example.customer.dto.CustomerPatch;
+import com.example.customer.dto.CustomerRevision;
+import com.example.customer.dto.CustomerStatistics;
+import com.example.customer.entity.Customer;
+import com.example.customer.entity.Gender;
+import com.example.customer.event.CustomerChangedEvent;
+import com.example.customer.exception.CustomerNotFoundException;
+import com.example.customer.exception.CustomerVersionConflictException;
+import com.example.customer.exception.DuplicatePhoneException;
+import com.example.customer.exception.InvalidCustomerDataException;
+import com.example.customer.repository.ShardedCustomerRepository;
+import com.example.customer.service.CustomerService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 分片模式下的客户服务（customer.sharding.enabled=true 时替代 CustomerServiceImpl）
+ * 单个客户的读写只访问一个分片，列表、筛选和计数并行查询所有分片后合并；
+ * 没有跨分片事务，变更事件在分片事务提交后发布
+ */
+@Service
+@Timed(value = "customer.service", histogram = true)
+@ConditionalOnProperty(name = "customer.sharding.enabled", havingValue = "true")
+public class ShardedCustomerServiceImpl implements CustomerService {
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    private final ShardedCustomerRepository customerRepository;
+    private final CustomerStatisticsAggregator customerStatistics;
+    private final CustomerChangeTracker customerChangeTracker;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+
+    @Autowired
+    public ShardedCustomerServiceImpl(ShardedCustomerRepository customerRepository,
+                                      CustomerStatisticsAggregator customerStatistics,
+                                      CustomerChangeTracker customerChangeTracker,
+                                      ApplicationEventPublisher eventPublisher,
+                                      Validator validator) {
+        this.customerRepository = customerRepository;
+        this.customerStatistics = customerStatistics;
+        this.customerChangeTracker = customerChangeTracker;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+    }
+
+    @Override
+    public Customer saveCustomer(Customer customer) {
+        Customer saved;
+        try {
+            saved = customerRepository.insert(customer);
+        } catch (DuplicateKeyException e) {
+            throw new DuplicatePhoneException("手机号已存在: " + customer.getPhone(), e);
+        }
+        eventPublisher.publishEvent(CustomerChangedEvent.created(saved));
+        return saved;
+    }
+
+    /**
+     * 各客户落在不同分片，逐条写入；没有跨分片事务，前面已保存的客户不会因后面的冲突回滚
+     */
+    @Override
+    public List<Customer> saveCustomers(List<Customer> customers) {
+        List<Customer> saved = new ArrayList<>(customers.size());
+        for (Customer customer : customers) {
+            saved.add(saveCustomer(customer));
+        }
+        return saved;
+    }
+
+    @Override
+    public Customer updateCustomer(Customer customer) {
+        if (customer.getId() == null) {
+            throw new CustomerNotFoundException("更新客户时ID不能为空");
+        }
+        Customer previous = customerRepository.findById(customer.getId())
+                .orElseThrow(() -> new CustomerNotFoundException(customer.getId()));
+
+        // 未携带版本号的旧客户端按当前版本处理（后写覆盖）；携带时必须与当前版本一致
+        Customer updated = customer.toBuilder().build();
+        if (updated.getVersion() == null) {
+            updated.setVersion(previous.getVersion());
+        } else if (!updated.getVersion().equals(previous.getVersion())) {
+            throw new CustomerVersionConflictException(customer.getId());
+        }
+        Customer saved = update(previous, updated);
+        eventPublisher.publishEvent(CustomerChangedEvent.updated(previous, saved));
+        return saved;
+    }
+
+    @Override
+    public Customer patchCustomer(Long id, CustomerPatch patch) {
+        if (patch.getVersion() == null) {
+            throw new InvalidCustomerDataException("部分更新必须携带version");
+        }
+        Customer previous = customerRepository.findById(id)
+                .orElseThrow(() -> new CustomerNotFoundException(id));
+        if (!patch.getVersion().equals(previous.getVersion())) {
+            throw new CustomerVersionConflictException(id);
+        }
+        if (patch.getPresent().isEmpty()) {
+            return previous;
+        }
+        Customer patched = previous.toBuilder().build();
+        patch.applyTo(patched);
+        Set<ConstraintViolation<Customer>> violations = validator.validate(patched);
+        if (!violations.isEmpty()) {
+            throw new InvalidCustomerDataException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        Customer saved = update(previous, patched);
+        eventPublisher.publishEvent(CustomerChangedEvent.updated(previous, saved));
+        return saved;
+    }
+
+    @Override
+    public void deleteCustomer(Long id) {
+        Customer existing = customerRepository.findById(id)
+                .orElseThrow(() -> new CustomerNotFoundException(id));
+        try {
+            customerRepository.delete(existing);
+        } catch (EmptyResultDataAccessException e) {
+            throw new CustomerNotFoundException(id);
+        }
+        eventPublisher.publishEvent(CustomerChangedEvent.deleted(existing));
+    }
+
+    @Override
+    public Optional<Customer> findCustomerById(Long id) {
+        return customerRepository.findById(id);
+    }
+
+    @Override
+    public Optional<CustomerRevision> findCustomerRevision(Long id) {
+        return customerRepository.findRevisionById(id);
+    }
+
+    @Override
+    public CustomerRevision getCustomerListRevision() {
+        return customerChangeTracker.current();
+    }
+
+    @Override
+    public List<Customer> findAllCustomers() {
+        return customerRepository.findAll();
+    }
+
+    @Override
+    public Page<Customer> findCustomersWithPagination(Pageable pageable) {
+        return customerRepository.findWithFilters(null, null, null, pageable);
+    }
+
+    @Override
+    public Page<Customer> findCustomersWithFilters(String name, String phone, String email, Pageable pageable) {
+        return customerRepository.findWithFilters(trimToNull(name), trimToNull(phone), trimToNull(email), pageable);
+    }
+
+    @Override
+    public Slice<Customer> findCustomerSliceWithFilters(String name, String phone, String email, Pageable pageable) {
+        return customerRepository.findSliceWithFilters(trimToNull(name), trimToNull(phone), trimToNull(email),
+                pageable);
+    }
+
+    @Override
+    public CursorPage<Customer> findCustomersByCursor(String name, String phone, String email,
+                                                      String sortBy, String sortDir, String cursor, int size) {
+        CustomerCursor.SortKey sortKey = CustomerCursor.SortKey.of(sortBy);
+        boolean descending = "desc".equalsIgnoreCase(sortDir);
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+
+        CustomerCursor after = cursor != null && !cursor.trim().isEmpty()
+                ? CustomerCursor.decode(cursor.trim(), sortKey, descending)
+                : null;
+
+        List<Customer> rows = customerRepository.seek(trimToNull(name), trimToNull(phone), trimToNull(email),
+                sortKey, descending, after, pageSize + 1);
+
+        boolean hasNext = rows.size() > pageSize;
+        List<Customer> content = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext
+                ? CustomerCursor.after(content.get(content.size() - 1), sortKey, descending).encode()
+                : null;
+
+        return new CursorPage<>(content, pageSize, hasNext, nextCursor,
+                sortKey.getProperty(), descending ? "desc" : "asc");
+    }
+
+    @Override
+    public Page<CustomerListItem> findCustomerListItems(String name, String phone, String email, Pageable pageable) {
+        return findCustomersWithFilters(name, phone, email, pageable).map(ShardedCustomerServiceImpl::toListItem);
+    }
+
+    @Override
+    public List<CustomerListItem> findCustomerListItemsByName(String name) {
+        return findCustomersByName(name).stream()
+                .map(ShardedCustomerServiceImpl::toListItem)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<Customer> findCustomerByPhone(String phone) {
+        return customerRepository.findByPhone(phone);
+    }
+
+    @Override
+    public List<Customer> findCustomersByName(String name) {
+        return customerRepository.findByNameContaining(trimToNull(name));
+    }
+
+    @Override
+    public List<Customer> findCustomersByAgeRange(Integer minAge, Integer maxAge) {
+        return customerRepository.findByAgeRange(minAge, maxAge);
+    }
+
+    @Override
+    public List<Customer> findCustomersByGender(Gender gender) {
+        return customerRepository.findByGender(gender);
+    }
+
+    @Override
+    public boolean isPhoneExists(String phone, Long excludeId) {
+        return customerRepository.findPhoneOwner(phone)
+                .filter(owner -> !owner.equals(excludeId))
+                .isPresent();
+    }
+
+    @Override
+    public long getTotalCustomerCount() {
+        return customerRepository.count();
+    }
+
+    /**
+     * 分片模式不使用客户缓存
+     */
+    @Override
+    public Map<String, Object> getCacheStatistics() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public CustomerStatistics getCustomerStatistics(int ageBucketWidth, int days) {
+        return customerStatistics.snapshot(ageBucketWidth, days);
+    }
+
+    /**
+     * 手机号唯一性由占用表保证，不做预检查；冲突和版本不一致转为业务异常
+     */
+    private Customer update(Customer previous, Customer updated) {
+        try {
+            return customerRepository.update(previous, updated);
+        } catch (DuplicateKeyException e) {
+            throw new DuplicatePhoneException("手机号已存在: " + updated.getPhone(), e);
+        } catch (OptimisticLockingFailureException e) {
+            throw new CustomerVersionConflictException(previous.getId(), e);
+        }
+    }
+
+    private static CustomerListItem toListItem(Customer customer) {
+        return new CustomerListItem(customer.getId(), customer.getName(), customer.getPhone(), customer.getEmail(),
+                customer.getAge(), customer.getGender(), customer.getAddress(), customer.getCreatedTime());
+    }
+
+    private static String trimToNull(String value) {
+        return value != null && !value.trim().isEmpty() ? value.trim() : null;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.customer.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按观测延迟自适应的并发上限（梯度算法）
+ * 维护长期平均延迟（指数移动平均，代表无排队时的延迟）和每个采样窗口的平均延迟，
+ * 新上限 = 当前上限 * min(1, tolerance * 长期延迟 / 窗口延迟) + sqrt(当前上限)：
+ * 延迟上升（开始排队）时按比例收缩，延迟平稳时每个窗口增加约 sqrt(上限) 的余量；
+ * 窗口内有请求失败（超时、连接池耗尽）时直接乘以 backoffRatio。
+ * tryAcquire/release 只是CAS计数，不加锁；上限每个窗口由一个线程重新计算一次
+ */
+public class GradientConcurrencyLimit {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double tolerance;
+
+    private final double smoothing;
+
+    private final double backoffRatio;
+
+    private final long windowNanos;
+
+    private final int minWindowSamples;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private volatile double limit;
+
+    private volatile double longRttNanos;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    private final LongAdder windowRttSum = new LongAdder();
+
+    private final LongAdder windowSamples = new LongAdder();
+
+    private final LongAdder windowDrops = new LongAdder();
+
+    /**
+     * 窗口内出现过的最大并发；并发远低于上限时延迟不能说明上限是否合适，不调整
+     */
+    private final AtomicInteger windowMaxInflight = new AtomicInteger();
+
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance,
+                                    double smoothing, double backoffRatio, long windowNanos, int minWindowSamples) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("invalid limit range: " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = Math.max(1.0, tolerance);
+        this.smoothing = Math.min(1.0, Math.max(0.01, smoothing));
+        this.backoffRatio = Math.min(0.99, Math.max(0.1, backoffRatio));
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = Math.max(1, minWindowSamples);
+        this.limit = Math.min(maxLimit, Math.max(minLimit, initialLimit));
+    }
+
+    /**
+     * @return 未超过上限时占用一个名额并返回true，调用方必须在请求结束后调用 release
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inflight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+        } while (!inflight.compareAndSet(current, current + 1));
+        windowMaxInflight.accumulateAndGet(current + 1, Math::max);
+        return true;
+    }
+
+    /**
+     * 释放名额并记录本次请求的耗时
+     *
+     * @param sample 为false时只释放名额（长连接、批量导入导出等耗时与负载无关的请求）
+     * @param dropped 请求因超时或资源耗尽失败
+     */
+    public void release(long rttNanos, boolean sample, boolean dropped) {
+        inflight.decrementAndGet();
+        if (sample) {
+            windowRttSum.add(rttNanos);
+            windowSamples.increment();
+            if (dropped) {
+                windowDrops.increment();
+            }
+        }
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= windowNanos && windowSamples.sum() >= minWindowSamples
+                && windowStart.compareAndSet(start, now)) {
+            update();
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public double getLongRttMillis() {
+        return longRttNanos / 1_000_000.0;
+    }
+
+    /**
+     * 只有赢得窗口CAS的线程执行；与其他线程的采样并发时个别样本可能计入下一窗口，不影响结果
+     */
+    private void update() {
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttSum.sumThenReset();
+        long drops = windowDrops.sumThenReset();
+        int maxInflight = windowMaxInflight.getAndSet(inflight.get());
+        if (samples == 0) {
+            return;
+        }
+        double shortRtt = (double) rttSum / samples;
+        double longRtt = longRttNanos;
+        if (longRtt == 0) {
+            longRttNanos = shortRtt;
+            return;
+        }
+        // 长期延迟向窗口延迟缓慢靠拢；负载下降后窗口延迟远低于长期值时加快回落，避免长期值停留在拥塞时的水平
+        longRtt = longRtt / shortRtt > 2 ? longRtt * 0.95 : longRtt * 0.95 + shortRtt * 0.05;
+        longRttNanos = longRtt;
+
+        double current = limit;
+        double next;
+        if (drops > 0) {
+            next = current * backoffRatio;
+        } else if (maxInflight < current / 2) {
+            return;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+            next = current * gradient + Math.sqrt(current);
+            next = current * (1 - smoothing) + next * smoothing;
+        }
+        limit = Math.min(maxLimit, Math.max(minLimit, next));
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.customer.util;
+
+/**
+ * 基本类型哈希工具
+ */
+public final class HashFunctions {
+
+    private HashFunctions() {
+    }
+
+    /**
+     * MurmurHash3 的 fmix64 终结函数，将相近的输入（如连续手机号）打散到整个64位空间
+     */
+    public static long mix64(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.customer.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 基本类型long的开放寻址哈希集合（线性探测）
+ * 读操作无锁：表通过volatile引用发布，元素为AtomicLongArray，读线程总能看到完整的值；
+ * 写操作在集合上同步。删除使用墓碑标记，不破坏探测链。
+ * 0和-1用作空槽与墓碑，不能作为元素
+ */
+public class LongOpenHashSet {
+
+    private static final long EMPTY = 0L;
+
+    private static final long TOMBSTONE = -1L;
+
+    private static final float MAX_LOAD = 0.5f;
+
+    private volatile AtomicLongArray table;
+
+    private int size;
+
+    /**
+     * 已占用的槽位（含墓碑），用于决定何时扩容或重新整理
+     */
+    private int used;
+
+    public LongOpenHashSet(int expectedSize) {
+        this.table = new AtomicLongArray(capacityFor(expectedSize));
+    }
+
+    public boolean contains(long value) {
+        checkValue(value);
+        AtomicLongArray t = table;
+        int mask = t.length() - 1;
+        int i = index(value, mask);
+        while (true) {
+            long current = t.get(i);
+            if (current == value) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    public synchronized boolean add(long value) {
+        checkValue(value);
+        if (used + 1 > table.length() * MAX_LOAD) {
+            rehash(size + 1 > table.length() * MAX_LOAD / 2 ? table.length() * 2 : table.length());
+        }
+        AtomicLongArray t = table;
+        int mask = t.length() - 1;
+        int i = index(value, mask);
+        int firstTombstone = -1;
+        while (true) {
+            long current = t.get(i);
+            if (current == value) {
+                return false;
+            }
+            if (current == TOMBSTONE && firstTombstone < 0) {
+                firstTombstone = i;
+            } else if (current == EMPTY) {
+                if (firstTombstone >= 0) {
+                    t.set(firstTombstone, value);
+                } else {
+                    t.set(i, value);
+                    used++;
+                }
+                size++;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    public synchronized boolean remove(long value) {
+        checkValue(value);
+        AtomicLongArray t = table;
+        int mask = t.length() - 1;
+        int i = index(value, mask);
+        while (true) {
+            long current = t.get(i);
+            if (current == value) {
+                t.set(i, TOMBSTONE);
+                size--;
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 在新表中重新插入所有元素后整体替换，读线程在替换前后看到的都是完整的表
+     */
+    private void rehash(int newCapacity) {
+        AtomicLongArray old = table;
+        AtomicLongArray fresh = new AtomicLongArray(newCapacity);
+        int mask = newCapacity - 1;
+        for (int j = 0; j < old.length(); j++) {
+            long value = old.get(j);
+            if (value != EMPTY && value != TOMBSTONE) {
+                int i = index(value, mask);
+                while (fresh.get(i) != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                fresh.set(i, value);
+            }
+        }
+        used = size;
+        table = fresh;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity * MAX_LOAD < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int index(long value, int mask) {
+        return (int) HashFunctions.mix64(value) & mask;
+    }
+
+    private static void checkValue(long value) {
+        if (value == EMPTY || value == TOMBSTONE) {
+            throw new IllegalArgumentException("0和-1为保留值: " + value);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.customer.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按码点切分的n-gram倒排索引
+ * 索引长度在[minGram, maxGram]之间的所有子串；gram最多3个码点，打包为一个long作为键。
+ * 按码点而非char切分，中文及扩展区汉字都能正确处理。
+ * 调用方负责在写入和查询前做相同的规范化（如转小写）
+ */
+public class NGramIndex {
+
+    public static final int MAX_GRAM = 3;
+
+    private static final int CODE_POINT_BITS = 21;
+
+    private final int minGram;
+
+    private final int maxGram;
+
+    private final ConcurrentHashMap<Long, IntPostingList> postings = new ConcurrentHashMap<>();
+
+    public NGramIndex(int minGram, int maxGram) {
+        if (minGram < 1 || maxGram > MAX_GRAM || minGram > maxGram) {
+            throw new IllegalArgumentException("gram长度必须满足 1 <= min <= max <= " + MAX_GRAM);
+        }
+        this.minGram = minGram;
+        this.maxGram = maxGram;
+    }
+
+    public void add(int id, String text) {
+        for (long gram : indexGrams(text)) {
+            postings.computeIfAbsent(gram, k -> new IntPostingList()).add(id);
+        }
+    }
+
+    public void remove(int id, String text) {
+        for (long gram : indexGrams(text)) {
+            IntPostingList list = postings.get(gram);
+            if (list != null) {
+                list.remove(id);
+            }
+        }
+    }
+
+    /**
+     * 返回包含查询子串的记录必然出现的倒排列表：
+     * 查询长度不超过maxGram时为该子串本身的列表（精确），更长时为其所有maxGram-gram的列表（求交后为候选超集）。
+     * 查询短于minGram时无法使用索引，返回null
+     */
+    public List<IntPostingList> postingsFor(String query) {
+        int[] cps = query.codePoints().toArray();
+        if (cps.length < minGram) {
+            return null;
+        }
+        if (cps.length <= maxGram) {
+            return Collections.singletonList(postingOrEmpty(pack(cps, 0, cps.length)));
+        }
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + maxGram <= cps.length; i++) {
+            grams.add(pack(cps, i, maxGram));
+        }
+        List<IntPostingList> result = new ArrayList<>(grams.size());
+        for (long gram : grams) {
+            result.add(postingOrEmpty(gram));
+        }
+        return result;
+    }
+
+    public int gramCount() {
+        return postings.size();
+    }
+
+    private IntPostingList postingOrEmpty(long gram) {
+        IntPostingList list = postings.get(gram);
+        return list != null ? list : new IntPostingList();
+    }
+
+    private Set<Long> indexGrams(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptySet();
+        }
+        int[] cps = text.codePoints().toArray();
+        Set<Long> grams = new HashSet<>();
+        for (int n = minGram; n <= maxGram; n++) {
+            for (int i = 0; i + n <= cps.length; i++) {
+                grams.add(pack(cps, i, n));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * 每个码点占21位，右对齐打包；码点0不会出现在文本中，因此不同长度的gram不会冲突
+     */
+    private static long pack(int[] cps, int from, int length) {
+        long key = 0;
+        for (int i = from; i < from + length; i++) {
+            key = (key << CODE_POINT_BITS) | cps[i];
+        }
+        return key;
+    }
+}
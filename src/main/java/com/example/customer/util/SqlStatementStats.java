@@ -0,0 +1,172 @@
+package com.example.customer.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 当前线程（一次HTTP请求或一段测试代码）内经Hibernate执行的SQL语句统计
+ * 由 SqlStatementInspector 记录语句、SqlTimingSessionListener 记录JDBC耗时；
+ * 只在 begin() 与 end() 之间统计，未开启时记录操作为空操作。
+ *
+ * 测试中可用于锁定语句预算：
+ * <pre>
+ * SqlStatementStats stats = SqlStatementStats.begin();
+ * try {
+ *     customerService.updateCustomer(customer);
+ *     stats.assertStatementCountAtMost(3).assertNoRepeatedStatements(2);
+ * } finally {
+ *     SqlStatementStats.end();
+ * }
+ * </pre>
+ * 注意：JdbcTemplate直接执行的语句（批量导入）不经过Hibernate，不在统计范围内
+ */
+public final class SqlStatementStats {
+
+    private static final ThreadLocal<SqlStatementStats> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 按语句文本计数的上限，超过后新语句只计总数，避免批量操作撑大内存
+     */
+    private static final int MAX_DISTINCT_STATEMENTS = 256;
+
+    private final Map<String, Integer> countsBySql = new HashMap<>();
+
+    private int statementCount;
+
+    private int selectCount;
+
+    private long jdbcNanos;
+
+    private SqlStatementStats() {
+    }
+
+    /**
+     * 在当前线程开始统计（覆盖之前未结束的统计）
+     */
+    public static SqlStatementStats begin() {
+        SqlStatementStats stats = new SqlStatementStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * 结束当前线程的统计并返回结果；未开始时返回null
+     */
+    public static SqlStatementStats end() {
+        SqlStatementStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    public static SqlStatementStats current() {
+        return CURRENT.get();
+    }
+
+    public void recordStatement(String sql) {
+        statementCount++;
+        if (sql.regionMatches(true, 0, "select", 0, 6)) {
+            selectCount++;
+        }
+        Integer count = countsBySql.get(sql);
+        if (count != null) {
+            countsBySql.put(sql, count + 1);
+        } else if (countsBySql.size() < MAX_DISTINCT_STATEMENTS) {
+            countsBySql.put(sql, 1);
+        }
+    }
+
+    public void recordJdbcTime(long nanos) {
+        jdbcNanos += nanos;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public int getSelectCount() {
+        return selectCount;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public double getJdbcMillis() {
+        return jdbcNanos / 1_000_000.0;
+    }
+
+    /**
+     * 同一语句的最大执行次数，N+1查询表现为同一语句被执行多次
+     */
+    public int getMaxRepeatCount() {
+        int max = 0;
+        for (int count : countsBySql.values()) {
+            max = Math.max(max, count);
+        }
+        return max;
+    }
+
+    /**
+     * 执行次数不少于 threshold 的语句，按次数从多到少排列
+     */
+    public List<Map.Entry<String, Integer>> getRepeatedStatements(int threshold) {
+        List<Map.Entry<String, Integer>> repeated = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : countsBySql.entrySet()) {
+            if (entry.getValue() >= threshold) {
+                repeated.add(entry);
+            }
+        }
+        repeated.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+        return repeated;
+    }
+
+    public SqlStatementStats assertStatementCount(int expected) {
+        if (statementCount != expected) {
+            throw new AssertionError("Expected " + expected + " SQL statements but was " + statementCount + describe());
+        }
+        return this;
+    }
+
+    public SqlStatementStats assertStatementCountAtMost(int max) {
+        if (statementCount > max) {
+            throw new AssertionError("Expected at most " + max + " SQL statements but was " + statementCount + describe());
+        }
+        return this;
+    }
+
+    public SqlStatementStats assertSelectCount(int expected) {
+        if (selectCount != expected) {
+            throw new AssertionError("Expected " + expected + " SELECT statements but was " + selectCount + describe());
+        }
+        return this;
+    }
+
+    /**
+     * 断言没有语句被执行 threshold 次及以上（N+1检测）
+     */
+    public SqlStatementStats assertNoRepeatedStatements(int threshold) {
+        List<Map.Entry<String, Integer>> repeated = getRepeatedStatements(threshold);
+        if (!repeated.isEmpty()) {
+            Map.Entry<String, Integer> worst = repeated.get(0);
+            throw new AssertionError("Statement executed " + worst.getValue() + " times: " + worst.getKey());
+        }
+        return this;
+    }
+
+    private String describe() {
+        StringBuilder description = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : getRepeatedStatements(1)) {
+            description.append("\n  ").append(entry.getValue()).append("x ").append(entry.getKey());
+        }
+        return description.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "SqlStatementStats{statements=" + statementCount + ", selects=" + selectCount
+                + ", jdbcMillis=" + getJdbcMillis() + ", maxRepeat=" + getMaxRepeatCount() + "}";
+    }
+}
@@ -1,20 +1,24 @@
 -- 初始化数据
-INSERT INTO customers (name, phone, email, address, age, gender, created_time, updated_time) VALUES
-('张三', '13800138001', 'zhangsan@example.com', '北京市朝阳区建国路1号', 25, 'MALE', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-('李四', '13800138002', 'lisi@example.com', '上海市浦东新区陆家嘴金融中心', 30, 'FEMALE', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-('王五', '13800138003', 'wangwu@example.com', '广州市天河区珠江新城', 28, 'MALE', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-('赵六', '13800138004', 'zhaoliu@example.com', '深圳市南山区科技园', 32, 'FEMALE', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-('钱七', '13800138005', 'qianqi@example.com', '杭州市西湖区文三路', 26, 'MALE', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+INSERT INTO customers (id, name, phone, email, address, age, gender, created_time, updated_time) VALUES
+(1, '张三', '13800138001', 'zhangsan@example.com', '北京市朝阳区建国路1号', 25, 'MALE', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(2, '李四', '13800138002', 'lisi@example.com', '上海市浦东新区陆家嘴金融中心', 30, 'FEMALE', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(3, '王五', '13800138003', 'wangwu@example.com', '广州市天河区珠江新城', 28, 'MALE', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(4, '赵六', '13800138004', 'zhaoliu@example.com', '深圳市南山区科技园', 32, 'FEMALE', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(5, '钱七', '13800138005', 'qianqi@example.com', '杭州市西湖区文三路', 26, 'MALE', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
 
 -- 插入默认管理员用户
 -- 用户名: admin
 -- 密码: admin123 (BCrypt加密)
-INSERT INTO users (username, password, created_time, updated_time) VALUES
-('admin', '$2a$10$BZyNYXWFZZAbSKGcl6rJJOoqjWp5dtr2.GkS.JxRo0SaEz/5Ccjoe', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+INSERT INTO users (id, username, password, created_time, updated_time) VALUES
+(1, 'admin', '$2a$10$BZyNYXWFZZAbSKGcl6rJJOoqjWp5dtr2.GkS.JxRo0SaEz/5Ccjoe', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
 
 -- 插入用户角色关联
 -- admin用户拥有所有角色
 INSERT INTO user_roles (user_id, role) VALUES
 (1, 'ADMIN'),
 (1, 'USER'),
-(1, 'MANAGER');
\ No newline at end of file
+(1, 'MANAGER');
+
+-- ID号段从已有数据之后开始
+UPDATE id_generators SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM customers) WHERE sequence_name = 'customers';
+UPDATE id_generators SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM users) WHERE sequence_name = 'users';
\ No newline at end of file
@@ -5,26 +5,51 @@ DROP TABLE IF EXISTS user_roles;
 DROP TABLE IF EXISTS customers;
 
 CREATE TABLE customers (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT PRIMARY KEY COMMENT 'ID，按号段分配（id_generators）',
     name VARCHAR(50) NOT NULL COMMENT '姓名',
-    phone VARCHAR(11) NOT NULL UNIQUE COMMENT '手机号',
+    phone VARCHAR(11) NOT NULL COMMENT '手机号',
     email VARCHAR(100) COMMENT '邮箱',
     address VARCHAR(200) COMMENT '地址',
     age INT COMMENT '年龄',
     gender VARCHAR(10) COMMENT '性别：MALE, FEMALE, OTHER',
     created_time DATETIME NOT NULL COMMENT '创建时间',
     updated_time DATETIME COMMENT '更新时间',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
 
+    CONSTRAINT uk_customers_phone UNIQUE (phone),
     INDEX idx_phone (phone),
     INDEX idx_name (name),
-    INDEX idx_created_time (created_time)
+    INDEX idx_created_time (created_time),
+    INDEX idx_updated_time_id (updated_time, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='顾客信息表';
 
+-- 创建顾客删除记录表（增量同步用，超过保留期后清理）
+DROP TABLE IF EXISTS customer_tombstones;
+
+CREATE TABLE customer_tombstones (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    customer_id BIGINT NOT NULL COMMENT '被删除的顾客ID',
+    phone VARCHAR(11) COMMENT '被删除顾客的手机号',
+    deleted_time DATETIME NOT NULL COMMENT '删除时间',
+
+    INDEX idx_tombstone_deleted_time_id (deleted_time, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='顾客删除记录表';
+
+-- 创建ID号段表：每行一个序列，next_val为下一个号段的起点，各实例取号段时按旧值条件更新
+DROP TABLE IF EXISTS id_generators;
+
+CREATE TABLE id_generators (
+    sequence_name VARCHAR(255) NOT NULL PRIMARY KEY COMMENT '序列名：customers, users',
+    next_val BIGINT COMMENT '下一个号段的起点'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='ID号段表';
+
+INSERT INTO id_generators (sequence_name, next_val) VALUES ('customers', 1), ('users', 1);
+
 -- 创建用户表
 DROP TABLE IF EXISTS users;
 
 CREATE TABLE users (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT PRIMARY KEY COMMENT 'ID，按号段分配（id_generators）',
     username VARCHAR(50) NOT NULL UNIQUE COMMENT '用户名',
     password VARCHAR(100) NOT NULL COMMENT '密码',
     created_time DATETIME NOT NULL COMMENT '创建时间',
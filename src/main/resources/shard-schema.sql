@@ -0,0 +1,28 @@
+-- 客户分片的表结构，在每个分片库上执行（H2需使用MODE=MySQL）
+
+-- 顾客信息表：id为分片内自增ID，对外的客户ID = id * 分片数 + 分片序号；
+-- 文本列使用二进制排序规则，跨分片合并结果时才能在应用内按相同顺序排序（H2忽略COLLATE）
+CREATE TABLE IF NOT EXISTS customers (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(50) COLLATE utf8mb4_bin NOT NULL,
+    phone VARCHAR(11) COLLATE utf8mb4_bin NOT NULL,
+    email VARCHAR(100) COLLATE utf8mb4_bin,
+    address VARCHAR(200) COLLATE utf8mb4_bin,
+    age INT,
+    gender VARCHAR(10),
+    created_time DATETIME NOT NULL,
+    updated_time DATETIME,
+    version BIGINT NOT NULL DEFAULT 0,
+
+    UNIQUE KEY uk_phone (phone),
+    KEY idx_name (name),
+    KEY idx_created_time (created_time)
+);
+
+-- 手机号占用表：位于手机号哈希所在的分片，保证手机号跨分片唯一；
+-- 客户修改手机号后仍留在原分片，按手机号查询时经此表找到客户ID
+CREATE TABLE IF NOT EXISTS customer_phones (
+    phone VARCHAR(11) PRIMARY KEY,
+    customer_id BIGINT NOT NULL,
+    claimed_time DATETIME NOT NULL
+);
@@ -0,0 +1,130 @@
+package com.example.customer.controller;
+
+import com.example.customer.config.AuthenticationCache;
+import com.example.customer.util.SqlStatementStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 锁定列表、更新、登录三条路径的SQL语句预算
+ * 每个请求在测试线程上执行，SqlStatementStatsFilter沿用测试开始的统计；
+ * 预算取缓存未命中时的语句数，缓存命中时只会更少
+ */
+@SpringBootTest(properties = {
+        "spring.sql.init.schema-locations=optional:classpath:none.sql",
+        "spring.jpa.defer-datasource-initialization=true",
+        "concurrency-limit.enabled=false"
+})
+@AutoConfigureMockMvc
+class SqlStatementBudgetTest {
+
+    private static final String USERNAME = "admin";
+
+    private static final String PASSWORD = "admin123";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AuthenticationCache authenticationCache;
+
+    private MockHttpSession session;
+
+    private String csrfToken;
+
+    @BeforeEach
+    void login() throws Exception {
+        MvcResult loginPage = mockMvc.perform(get("/login")).andReturn();
+        MockHttpSession anonymous = (MockHttpSession) loginPage.getRequest().getSession();
+        MvcResult result = mockMvc.perform(post("/login")
+                        .session(anonymous)
+                        .param("username", USERNAME)
+                        .param("password", PASSWORD)
+                        .param("_csrf", csrfToken(loginPage)))
+                .andExpect(status().is3xxRedirection())
+                .andReturn();
+        session = (MockHttpSession) result.getRequest().getSession();
+        // 登录后CSRF令牌会更换
+        csrfToken = csrfToken(mockMvc.perform(get("/login").session(session)).andReturn());
+    }
+
+    @Test
+    void loginStaysWithinBudget() throws Exception {
+        MvcResult loginPage = mockMvc.perform(get("/login")).andReturn();
+        MockHttpSession anonymous = (MockHttpSession) loginPage.getRequest().getSession();
+        authenticationCache.invalidateAll();
+
+        SqlStatementStats stats = measure(post("/login")
+                .session(anonymous)
+                .param("username", USERNAME)
+                .param("password", PASSWORD)
+                .param("_csrf", csrfToken(loginPage)));
+
+        // 认证缓存未命中：用户连同角色一条联表查询
+        stats.assertStatementCountAtMost(1).assertNoRepeatedStatements(2);
+    }
+
+    @Test
+    void listCustomersStaysWithinBudget() throws Exception {
+        SqlStatementStats stats = measure(get("/customers").session(session));
+
+        // 一条分页投影查询，客户表和墓碑表的ETag标记各一条，计数器首次初始化一条
+        stats.assertStatementCountAtMost(4).assertNoRepeatedStatements(2);
+    }
+
+    @Test
+    void updateCustomerStaysWithinBudget() throws Exception {
+        MvcResult current = mockMvc.perform(get("/api/customers/1").session(session))
+                .andExpect(status().isOk())
+                .andReturn();
+        String body = current.getResponse().getContentAsString();
+
+        SqlStatementStats stats = measure(put("/api/customers/1")
+                .session(session)
+                .header("X-CSRF-TOKEN", csrfToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+
+        // 绕过二级缓存按主键读当前版本一条，只含变更列的UPDATE一条
+        stats.assertStatementCountAtMost(2).assertSelectCount(1).assertNoRepeatedStatements(2);
+    }
+
+    private SqlStatementStats measure(RequestBuilder request) throws Exception {
+        // 清空二级缓存，按缓存未命中计算预算
+        entityManagerFactory.getCache().evictAll();
+        SqlStatementStats stats = SqlStatementStats.begin();
+        try {
+            MvcResult result = mockMvc.perform(request).andReturn();
+            if (result.getResponse().getStatus() >= 400) {
+                throw new AssertionError("Request failed with status " + result.getResponse().getStatus()
+                        + ": " + result.getResponse().getContentAsString());
+            }
+        } finally {
+            SqlStatementStats.end();
+        }
+        return stats;
+    }
+
+    private static String csrfToken(MvcResult result) {
+        return ((CsrfToken) result.getRequest().getAttribute(CsrfToken.class.getName())).getToken();
+    }
+}